@@ -1,14 +1,21 @@
 package net.tockmod;
 
 import net.fabricmc.api.ModInitializer;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerChunkEvents;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
 import net.minecraft.server.MinecraftServer;
+import net.tockmod.cache.BlockCache;
 import net.tockmod.config.ModConfig;
 import net.tockmod.tick.NeuroTickController;
 import net.tockmod.chunk.ChunkFuseManager;
+import net.tockmod.entity.EntityCostTracker;
+import net.tockmod.entity.EntityLodManager;
 import net.tockmod.entity.SnailSpawnManager;
+import net.tockmod.metrics.MetricsReporter;
+import net.tockmod.profiler.SamplingProfiler;
 import net.tockmod.scheduler.SmartScheduler;
+import net.tockmod.world.PlayerSpatialIndex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -20,18 +27,33 @@ public class TockMod implements ModInitializer {
     private static TockMod instance;
     private MinecraftServer server;
     private final NeuroTickController neuroTickController;
+    private final PlayerSpatialIndex playerSpatialIndex;
     private final ChunkFuseManager chunkFuseManager;
     private final SnailSpawnManager snailSpawnManager;
+    private final EntityLodManager entityLodManager;
+    private final EntityCostTracker entityCostTracker = new EntityCostTracker();
     private final SmartScheduler smartScheduler;
+    private final BlockCache blockCache;
+    private final MetricsReporter metricsReporter = new MetricsReporter();
+    private final SamplingProfiler samplingProfiler = new SamplingProfiler();
 
     public TockMod() {
         instance = this;
         
         // Initialize core systems
         this.neuroTickController = new NeuroTickController();
+        this.playerSpatialIndex = new PlayerSpatialIndex();
         this.chunkFuseManager = new ChunkFuseManager();
-        this.snailSpawnManager = new SnailSpawnManager();
-        this.smartScheduler = new SmartScheduler();
+        this.snailSpawnManager = new SnailSpawnManager(neuroTickController, playerSpatialIndex);
+        this.entityLodManager = new EntityLodManager(playerSpatialIndex);
+        this.smartScheduler = new SmartScheduler(neuroTickController);
+        this.blockCache = new BlockCache(neuroTickController);
+
+        // Subsystems scale their work with NeuroTick's throttle level
+        neuroTickController.addThrottleListener(chunkFuseManager);
+        neuroTickController.addThrottleListener(snailSpawnManager);
+        neuroTickController.addThrottleListener(entityLodManager);
+        neuroTickController.addThrottleListener(smartScheduler);
     }
 
     @Override
@@ -62,28 +84,56 @@ public class TockMod implements ModInitializer {
                     world.getRegistryKey().getValue(),
                     world.getDimension().toString());
             });
+            metricsReporter.start(ModConfig.getInstance().metricsLogInterval);
+        });
+
+        ServerLifecycleEvents.SERVER_STOPPING.register(server -> {
+            // Worlds are saved after this, so held-back ticks must be back with vanilla by now
+            smartScheduler.onServerStopping(server);
+            snailSpawnManager.onServerStopping(server);
         });
 
+        ServerLifecycleEvents.END_DATA_PACK_RELOAD.register((server, resourceManager, success) -> smartScheduler.onTagsReloaded());
+
         ServerLifecycleEvents.SERVER_STOPPED.register(server -> {
             LOGGER.info("Server stopping - Tock is now inactive");
+            chunkFuseManager.onServerStopped();
+            playerSpatialIndex.clear();
+            blockCache.clear();
+            metricsReporter.stop();
+            samplingProfiler.stop();
+            entityCostTracker.clear();
             this.server = null;
         });
         
         // Register tick events
         ServerTickEvents.START_SERVER_TICK.register(server -> {
+            samplingProfiler.onServerTickStart();
             neuroTickController.onServerTickStart(server);
+            // Everything below may ask where the players are
+            playerSpatialIndex.rebuild(server);
             chunkFuseManager.onServerTickStart(server);
             snailSpawnManager.onServerTickStart(server);
+            entityLodManager.onServerTickStart(server);
+            entityCostTracker.onServerTickStart(server);
             smartScheduler.onServerTickStart(server);
         });
 
         ServerTickEvents.END_SERVER_TICK.register(server -> {
+            // First, so the capture counts towards the tick NeuroTick measures; nothing after
+            // it changes blocks, so snapshots still include every change made during the tick
+            blockCache.onServerTickEnd(server);
             neuroTickController.onServerTickEnd(server);
             chunkFuseManager.onServerTickEnd(server);
             snailSpawnManager.onServerTickEnd(server);
+            entityLodManager.onServerTickEnd(server);
             smartScheduler.onServerTickEnd(server);
         });
 
+        ServerChunkEvents.CHUNK_LOAD.register(blockCache::onChunkLoad);
+        ServerChunkEvents.CHUNK_UNLOAD.register(smartScheduler::onChunkSaving);
+        ServerChunkEvents.CHUNK_UNLOAD.register(blockCache::onChunkUnload);
+
         LOGGER.info("Tock initialization complete!");
     }
 
@@ -103,6 +153,10 @@ public class TockMod implements ModInitializer {
         return neuroTickController;
     }
 
+    public PlayerSpatialIndex getPlayerSpatialIndex() {
+        return playerSpatialIndex;
+    }
+
     public ChunkFuseManager getChunkFuseManager() {
         return chunkFuseManager;
     }
@@ -111,7 +165,23 @@ public class TockMod implements ModInitializer {
         return snailSpawnManager;
     }
 
+    public EntityLodManager getEntityLodManager() {
+        return entityLodManager;
+    }
+
+    public EntityCostTracker getEntityCostTracker() {
+        return entityCostTracker;
+    }
+
     public SmartScheduler getSmartScheduler() {
         return smartScheduler;
     }
+
+    public BlockCache getBlockCache() {
+        return blockCache;
+    }
+
+    public SamplingProfiler getSamplingProfiler() {
+        return samplingProfiler;
+    }
 } 
\ No newline at end of file
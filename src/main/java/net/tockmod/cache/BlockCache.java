@@ -0,0 +1,413 @@
+package net.tockmod.cache;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongLinkedOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.registry.Registries;
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.PalettedContainer;
+import net.minecraft.world.chunk.WorldChunk;
+import net.tockmod.config.ModConfig;
+import net.tockmod.metrics.Counter;
+import net.tockmod.metrics.MetricsRegistry;
+import net.tockmod.tick.NeuroTickController;
+import net.tockmod.tick.TickCategory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+// Read-only block state snapshots that any thread can query without touching the world.
+// Block changes and chunk loads mark sections dirty; at the end of every tick the dirty
+// sections of loaded chunks are copied and published as a new ChunkSnapshot, a newly loaded
+// chunk only once all of its sections are in. Readers get whole immutable snapshots out of a
+// concurrent map, so they never lock and never load chunks. Snapshots are dropped when their
+// chunk unloads unless configured to outlive it, and each world is capped. Capturing runs
+// inside the tick, so it is charged to the NeuroTick budget.
+public class BlockCache {
+    private static final Counter CAPTURED_SECTIONS = MetricsRegistry.counter("blockcache.captured_sections");
+    private static final int MAX_FIND_RESULTS = 4096;
+    private static final int MIN_SECTIONS_PER_TICK = 64; // Captured even with no budget left, so the cache keeps up
+    private static final int CLOCK_CHECK_INTERVAL = 32; // Sections taken per batch, between nanoTime reads
+    private final Map<RegistryKey<World>, WorldCache> worlds = new ConcurrentHashMap<>();
+    private final NeuroTickController neuroTickController;
+
+    public BlockCache(NeuroTickController neuroTickController) {
+        this.neuroTickController = neuroTickController;
+    }
+
+    public void onChunkLoad(ServerWorld world, WorldChunk chunk) {
+        if (!ModConfig.getInstance().blockCacheEnabled) {
+            return;
+        }
+
+        WorldCache cache = cacheFor(world.getRegistryKey());
+        ChunkPos pos = chunk.getPos();
+        int bottom = world.getBottomSectionCoord();
+        for (int index = 0; index < world.countVerticalSections(); index++) {
+            cache.markDirty(ChunkSectionPos.asLong(pos.x, bottom + index, pos.z));
+        }
+    }
+
+    public void onChunkUnload(ServerWorld world, WorldChunk chunk) {
+        ModConfig config = ModConfig.getInstance();
+        if (!config.blockCacheEnabled || config.blockCacheKeepUnloaded) {
+            return;
+        }
+
+        WorldCache cache = worlds.get(world.getRegistryKey());
+        if (cache != null) {
+            cache.remove(chunk.getPos().toLong());
+        }
+    }
+
+    public void onBlockChanged(ServerWorld world, BlockPos pos) {
+        if (!ModConfig.getInstance().blockCacheEnabled) {
+            return;
+        }
+
+        cacheFor(world.getRegistryKey()).markDirty(ChunkSectionPos.asLong(
+            ChunkSectionPos.getSectionCoord(pos.getX()),
+            ChunkSectionPos.getSectionCoord(pos.getY()),
+            ChunkSectionPos.getSectionCoord(pos.getZ())));
+    }
+
+    public void onServerTickEnd(MinecraftServer server) {
+        ModConfig config = ModConfig.getInstance();
+        if (!config.blockCacheEnabled) {
+            return;
+        }
+
+        neuroTickController.getCostProfiler().begin(TickCategory.BLOCK_CACHE);
+        long tick = server.getTicks();
+        long deadline = System.nanoTime() + neuroTickController.getEndOfTickBudgetNanos();
+        int remaining = config.blockCacheSectionsPerTick;
+        for (ServerWorld world : server.getWorlds()) {
+            WorldCache cache = worlds.get(world.getRegistryKey());
+            if (cache != null) {
+                int captured = cache.capture(world, tick, remaining, deadline, config.blockCacheMaxChunks);
+                remaining -= captured;
+                CAPTURED_SECTIONS.add(captured);
+            }
+        }
+        neuroTickController.getCostProfiler().end(TickCategory.BLOCK_CACHE);
+    }
+
+    public void clear() {
+        worlds.clear();
+    }
+
+    // Snapshot of the chunk, or null if it has never been captured
+    public ChunkSnapshot getChunk(RegistryKey<World> world, int chunkX, int chunkZ) {
+        WorldCache cache = worlds.get(world);
+        return cache != null ? cache.snapshots.get(ChunkPos.toLong(chunkX, chunkZ)) : null;
+    }
+
+    // Cached block state at the position, or null if its chunk has never been captured
+    public BlockState getBlockState(RegistryKey<World> world, BlockPos pos) {
+        ChunkSnapshot snapshot = getChunk(world, pos.getX() >> 4, pos.getZ() >> 4);
+        return snapshot != null ? snapshot.getBlockState(pos.getX(), pos.getY(), pos.getZ()) : null;
+    }
+
+    // Positions of the block in cached chunks within radius blocks of the center horizontally,
+    // at any height, nearest first. Chunks are walked in rings outward from the center, and the
+    // walk stops once a ring can't hold anything nearer than the limit-th best found so far.
+    // Sections without the block, or too far away to improve on the results, are skipped undecoded.
+    public List<BlockPos> findBlocks(RegistryKey<World> world, BlockPos center, int radius, Block block, int limit) {
+        WorldCache cache = worlds.get(world);
+        int capacity = Math.min(limit, MAX_FIND_RESULTS);
+        if (cache == null || capacity <= 0) {
+            return new ArrayList<>();
+        }
+
+        int blockId = Registries.BLOCK.getRawId(block);
+        NearestBlocks nearest = new NearestBlocks(capacity);
+        int centerChunkX = center.getX() >> 4;
+        int centerChunkZ = center.getZ() >> 4;
+        int fromX = (center.getX() - radius) >> 4;
+        int toX = (center.getX() + radius) >> 4;
+        int fromZ = (center.getZ() - radius) >> 4;
+        int toZ = (center.getZ() + radius) >> 4;
+        int maxRing = Math.max(Math.max(centerChunkX - fromX, toX - centerChunkX),
+            Math.max(centerChunkZ - fromZ, toZ - centerChunkZ));
+        // Horizontal distance from the center to just past the nearest edge of its own chunk
+        int localX = center.getX() & 15;
+        int localZ = center.getZ() & 15;
+        int edge = Math.min(Math.min(localX + 1, 16 - localX), Math.min(localZ + 1, 16 - localZ));
+
+        for (int ring = 0; ring <= maxRing; ring++) {
+            if (ring > 0 && nearest.isFull()) {
+                long reach = 16L * (ring - 1) + edge;
+                if (reach * reach >= nearest.getWorstDistanceSq()) {
+                    break;
+                }
+            }
+            for (int chunkX = centerChunkX - ring; chunkX <= centerChunkX + ring; chunkX++) {
+                // Whole first and last rows of the ring, only the two ends of the rows between
+                boolean edgeRow = chunkX == centerChunkX - ring || chunkX == centerChunkX + ring;
+                int step = edgeRow ? 1 : 2 * ring;
+                for (int chunkZ = centerChunkZ - ring; chunkZ <= centerChunkZ + ring; chunkZ += step) {
+                    if (chunkX < fromX || chunkX > toX || chunkZ < fromZ || chunkZ > toZ) {
+                        continue;
+                    }
+                    ChunkSnapshot snapshot = cache.snapshots.get(ChunkPos.toLong(chunkX, chunkZ));
+                    if (snapshot != null) {
+                        collectNearest(snapshot, center, radius, block, blockId, nearest);
+                    }
+                }
+            }
+        }
+
+        long[] sorted = nearest.toSortedArray();
+        List<BlockPos> found = new ArrayList<>(sorted.length);
+        for (long pos : sorted) {
+            found.add(BlockPos.fromLong(pos));
+        }
+        return found;
+    }
+
+    private static void collectNearest(ChunkSnapshot snapshot, BlockPos center, int radius, Block block, int blockId,
+                                       NearestBlocks nearest) {
+        int baseX = snapshot.getChunkX() << 4;
+        int baseZ = snapshot.getChunkZ() << 4;
+        long chunkDx = distanceToSpan(center.getX(), baseX);
+        long chunkDz = distanceToSpan(center.getZ(), baseZ);
+        for (int index = 0; index < snapshot.getSectionCount(); index++) {
+            if (!snapshot.sectionContains(index, blockId)) {
+                continue;
+            }
+            int baseY = (snapshot.getBottomSectionY() + index) << 4;
+            long sectionDy = distanceToSpan(center.getY(), baseY);
+            if (!nearest.accepts(chunkDx * chunkDx + sectionDy * sectionDy + chunkDz * chunkDz)) {
+                continue;
+            }
+
+            PalettedContainer<BlockState> section = snapshot.getSection(index);
+            for (int y = 0; y < 16; y++) {
+                long dy = baseY + y - center.getY();
+                for (int z = 0; z < 16; z++) {
+                    long dz = baseZ + z - center.getZ();
+                    if (Math.abs(dz) > radius) {
+                        continue;
+                    }
+                    for (int x = 0; x < 16; x++) {
+                        long dx = baseX + x - center.getX();
+                        long distanceSq = dx * dx + dy * dy + dz * dz;
+                        if (Math.abs(dx) <= radius && nearest.accepts(distanceSq) && section.get(x, y, z).isOf(block)) {
+                            nearest.add(BlockPos.asLong(baseX + x, baseY + y, baseZ + z), distanceSq);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    // Distance along one axis from the coordinate to the 16 block span starting at base
+    private static long distanceToSpan(int coord, int base) {
+        if (coord < base) {
+            return base - coord;
+        }
+        return Math.max(0, coord - (base + 15));
+    }
+
+    // Number of the block in cached chunks within radius blocks of the center horizontally, at
+    // any height. Sections wholly inside the area are counted from their summary alone.
+    public long countBlocks(RegistryKey<World> world, BlockPos center, int radius, Block block) {
+        int blockId = Registries.BLOCK.getRawId(block);
+        long[] total = new long[1];
+        forEachChunk(world, center, radius, snapshot -> {
+            int baseX = snapshot.getChunkX() << 4;
+            int baseZ = snapshot.getChunkZ() << 4;
+            boolean inside = baseX >= center.getX() - radius && baseX + 15 <= center.getX() + radius
+                && baseZ >= center.getZ() - radius && baseZ + 15 <= center.getZ() + radius;
+            for (int index = 0; index < snapshot.getSectionCount(); index++) {
+                if (!snapshot.sectionContains(index, blockId)) {
+                    continue;
+                }
+                if (inside) {
+                    total[0] += snapshot.countInSection(index, blockId);
+                    continue;
+                }
+
+                // Chunks on the edge of the area only count the part inside it
+                PalettedContainer<BlockState> section = snapshot.getSection(index);
+                for (int y = 0; y < 16; y++) {
+                    for (int z = 0; z < 16; z++) {
+                        for (int x = 0; x < 16; x++) {
+                            if (Math.abs(baseX + x - center.getX()) <= radius
+                                && Math.abs(baseZ + z - center.getZ()) <= radius
+                                && section.get(x, y, z).isOf(block)) {
+                                total[0]++;
+                            }
+                        }
+                    }
+                }
+            }
+        });
+        return total[0];
+    }
+
+    private void forEachChunk(RegistryKey<World> world, BlockPos center, int radius, Consumer<ChunkSnapshot> consumer) {
+        WorldCache cache = worlds.get(world);
+        if (cache == null) {
+            return;
+        }
+        int fromX = (center.getX() - radius) >> 4;
+        int toX = (center.getX() + radius) >> 4;
+        int fromZ = (center.getZ() - radius) >> 4;
+        int toZ = (center.getZ() + radius) >> 4;
+        for (int chunkX = fromX; chunkX <= toX; chunkX++) {
+            for (int chunkZ = fromZ; chunkZ <= toZ; chunkZ++) {
+                ChunkSnapshot snapshot = cache.snapshots.get(ChunkPos.toLong(chunkX, chunkZ));
+                if (snapshot != null) {
+                    consumer.accept(snapshot);
+                }
+            }
+        }
+    }
+
+    public boolean isCached(RegistryKey<World> world, int chunkX, int chunkZ) {
+        return getChunk(world, chunkX, chunkZ) != null;
+    }
+
+    public int getCachedChunkCount(RegistryKey<World> world) {
+        WorldCache cache = worlds.get(world);
+        return cache != null ? cache.snapshots.size() : 0;
+    }
+
+    public int getDirtySectionCount(RegistryKey<World> world) {
+        WorldCache cache = worlds.get(world);
+        return cache != null ? cache.getDirtyCount() : 0;
+    }
+
+    private WorldCache cacheFor(RegistryKey<World> world) {
+        return worlds.computeIfAbsent(world, key -> new WorldCache());
+    }
+
+    private static class WorldCache {
+        private final Map<Long, ChunkSnapshot> snapshots = new ConcurrentHashMap<>();
+        // Dirty section keys; block changes can come from worker threads, so guarded by itself
+        private final LongOpenHashSet dirtySections = new LongOpenHashSet();
+        // Server thread only: cached chunks in capture order, oldest first, for eviction
+        private final LongLinkedOpenHashSet captureOrder = new LongLinkedOpenHashSet();
+        // Server thread only: chunks being assembled, kept across ticks until every section is in
+        private final Long2ObjectOpenHashMap<PendingChunk> pending = new Long2ObjectOpenHashMap<>();
+        private final long[] batch = new long[CLOCK_CHECK_INTERVAL];
+
+        void markDirty(long sectionPos) {
+            synchronized (dirtySections) {
+                dirtySections.add(sectionPos);
+            }
+        }
+
+        int getDirtyCount() {
+            synchronized (dirtySections) {
+                return dirtySections.size();
+            }
+        }
+
+        void remove(long chunkPos) {
+            pending.remove(chunkPos);
+            if (snapshots.remove(chunkPos) != null) {
+                captureOrder.remove(chunkPos);
+            }
+        }
+
+        // Sections left dirty when the section cap or the deadline is hit wait for the next tick.
+        // Keys are taken out of the dirty set a batch at a time and copied outside its lock, so
+        // threads marking blocks dirty never wait on a copy.
+        int capture(ServerWorld world, long tick, int maxSections, long deadline, int maxChunks) {
+            int bottom = world.getBottomSectionCoord();
+            int sectionCount = world.countVerticalSections();
+            int captured = 0;
+
+            while (captured < maxSections) {
+                if (captured >= MIN_SECTIONS_PER_TICK && System.nanoTime() >= deadline) {
+                    break;
+                }
+                int count = takeDirty(Math.min(batch.length, maxSections - captured));
+                if (count == 0) {
+                    break;
+                }
+
+                for (int i = 0; i < count; i++) {
+                    long sectionPos = batch[i];
+                    int chunkX = ChunkSectionPos.unpackX(sectionPos);
+                    int chunkZ = ChunkSectionPos.unpackZ(sectionPos);
+                    int index = ChunkSectionPos.unpackY(sectionPos) - bottom;
+                    // Never load a chunk for the cache
+                    WorldChunk chunk = world.getChunkManager().getWorldChunk(chunkX, chunkZ);
+                    if (chunk == null || index < 0 || index >= sectionCount) {
+                        continue;
+                    }
+
+                    long chunkPos = ChunkPos.toLong(chunkX, chunkZ);
+                    PendingChunk pendingChunk = pending.get(chunkPos);
+                    if (pendingChunk == null) {
+                        pendingChunk = PendingChunk.from(snapshots.get(chunkPos), sectionCount);
+                        pending.put(chunkPos, pendingChunk);
+                    }
+
+                    ChunkSection section = chunk.getSection(index);
+                    if (section.isEmpty()) {
+                        pendingChunk.set(index, null, null);
+                    } else {
+                        PalettedContainer<BlockState> copy = section.getBlockStateContainer().copy();
+                        pendingChunk.set(index, copy, SectionSummary.of(copy));
+                    }
+                    captured++;
+                }
+            }
+
+            // Publish every complete chunk as a fresh immutable snapshot. Chunks still missing
+            // sections wait for the next tick, or are dropped if they unloaded meanwhile.
+            ObjectIterator<Long2ObjectMap.Entry<PendingChunk>> it = pending.long2ObjectEntrySet().fastIterator();
+            while (it.hasNext()) {
+                Long2ObjectMap.Entry<PendingChunk> entry = it.next();
+                long chunkPos = entry.getLongKey();
+                PendingChunk pendingChunk = entry.getValue();
+                int chunkX = ChunkPos.getPackedX(chunkPos);
+                int chunkZ = ChunkPos.getPackedZ(chunkPos);
+                if (pendingChunk.isComplete()) {
+                    snapshots.put(chunkPos, new ChunkSnapshot(chunkX, chunkZ, bottom, pendingChunk.sections,
+                        pendingChunk.summaries, tick));
+                    captureOrder.addAndMoveToLast(chunkPos);
+                    it.remove();
+                } else if (world.getChunkManager().getWorldChunk(chunkX, chunkZ) == null) {
+                    it.remove();
+                }
+            }
+
+            while (captureOrder.size() > maxChunks) {
+                snapshots.remove(captureOrder.removeFirstLong());
+            }
+            return captured;
+        }
+
+        private int takeDirty(int max) {
+            synchronized (dirtySections) {
+                LongIterator it = dirtySections.iterator();
+                int count = 0;
+                while (count < max && it.hasNext()) {
+                    batch[count++] = it.nextLong();
+                    it.remove();
+                }
+                return count;
+            }
+        }
+    }
+}
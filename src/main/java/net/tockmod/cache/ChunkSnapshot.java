@@ -0,0 +1,85 @@
+package net.tockmod.cache;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.world.chunk.PalettedContainer;
+
+// Immutable copy of one chunk's block states as of the end of some tick. Sections are
+// palette-compressed copies and never written again, so any thread may read them; an empty
+// section is stored as null. A change replaces the whole snapshot, never a section in place.
+public class ChunkSnapshot {
+    private static final BlockState AIR = Blocks.AIR.getDefaultState();
+
+    private final int chunkX;
+    private final int chunkZ;
+    private final int bottomSectionY;
+    private final PalettedContainer<BlockState>[] sections;
+    private final SectionSummary[] summaries;
+    private final long capturedTick;
+
+    ChunkSnapshot(int chunkX, int chunkZ, int bottomSectionY, PalettedContainer<BlockState>[] sections,
+                  SectionSummary[] summaries, long capturedTick) {
+        this.chunkX = chunkX;
+        this.chunkZ = chunkZ;
+        this.bottomSectionY = bottomSectionY;
+        this.sections = sections;
+        this.summaries = summaries;
+        this.capturedTick = capturedTick;
+    }
+
+    public int getChunkX() {
+        return chunkX;
+    }
+
+    public int getChunkZ() {
+        return chunkZ;
+    }
+
+    public int getBottomSectionY() {
+        return bottomSectionY;
+    }
+
+    public int getSectionCount() {
+        return sections.length;
+    }
+
+    // Server tick at the end of which the newest section in this snapshot was copied
+    public long getCapturedTick() {
+        return capturedTick;
+    }
+
+    public boolean isSectionEmpty(int sectionY) {
+        int index = sectionY - bottomSectionY;
+        return index < 0 || index >= sections.length || sections[index] == null;
+    }
+
+    // Block state at world coordinates inside this chunk; air outside the world's height
+    public BlockState getBlockState(int x, int y, int z) {
+        int index = (y >> 4) - bottomSectionY;
+        if (index < 0 || index >= sections.length || sections[index] == null) {
+            return AIR;
+        }
+        return sections[index].get(x & 15, y & 15, z & 15);
+    }
+
+    // Whether the section holds the block at all, answered without decoding it
+    boolean sectionContains(int index, int blockId) {
+        return summaries[index] != null && summaries[index].contains(blockId);
+    }
+
+    int countInSection(int index, int blockId) {
+        return summaries[index] != null ? summaries[index].count(blockId) : 0;
+    }
+
+    PalettedContainer<BlockState> getSection(int index) {
+        return sections[index];
+    }
+
+    PalettedContainer<BlockState>[] copySections() {
+        return sections.clone();
+    }
+
+    SectionSummary[] copySummaries() {
+        return summaries.clone();
+    }
+}
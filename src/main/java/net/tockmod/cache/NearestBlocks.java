@@ -0,0 +1,93 @@
+package net.tockmod.cache;
+
+// The nearest positions seen so far, up to a fixed count. A max-heap on squared distance keeps
+// the farthest kept position on top, so a candidate is accepted or rejected with one compare
+// and nothing is kept beyond the count.
+class NearestBlocks {
+    private final long[] positions;
+    private final long[] distances;
+    private int size;
+
+    NearestBlocks(int capacity) {
+        this.positions = new long[capacity];
+        this.distances = new long[capacity];
+    }
+
+    boolean isFull() {
+        return size == positions.length;
+    }
+
+    // Squared distance a candidate has to beat once full
+    long getWorstDistanceSq() {
+        return distances[0];
+    }
+
+    boolean accepts(long distanceSq) {
+        return size < positions.length || distanceSq < distances[0];
+    }
+
+    // Callers check accepts() first
+    void add(long pos, long distanceSq) {
+        if (size < positions.length) {
+            positions[size] = pos;
+            distances[size] = distanceSq;
+            siftUp(size++);
+        } else {
+            positions[0] = pos;
+            distances[0] = distanceSq;
+            siftDown(0, size);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    // Kept positions nearest first. Sorts the heap in place, so call it once at the end.
+    long[] toSortedArray() {
+        for (int end = size - 1; end > 0; end--) {
+            swap(0, end);
+            siftDown(0, end);
+        }
+        long[] sorted = new long[size];
+        System.arraycopy(positions, 0, sorted, 0, size);
+        return sorted;
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >> 1;
+            if (distances[parent] >= distances[index]) {
+                return;
+            }
+            swap(parent, index);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index, int end) {
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= end) {
+                return;
+            }
+            if (child + 1 < end && distances[child + 1] > distances[child]) {
+                child++;
+            }
+            if (distances[index] >= distances[child]) {
+                return;
+            }
+            swap(index, child);
+            index = child;
+        }
+    }
+
+    private void swap(int a, int b) {
+        long pos = positions[a];
+        positions[a] = positions[b];
+        positions[b] = pos;
+        long distance = distances[a];
+        distances[a] = distances[b];
+        distances[b] = distance;
+    }
+}
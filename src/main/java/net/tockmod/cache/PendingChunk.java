@@ -0,0 +1,51 @@
+package net.tockmod.cache;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.world.chunk.PalettedContainer;
+
+// A chunk's sections while a capture is being assembled, starting from its last snapshot. A
+// chunk with no usable snapshot starts with every section missing and isn't complete until each
+// has been copied, which can take several ticks; until then nothing of it is published, so a
+// null section in a snapshot always means an empty one.
+class PendingChunk {
+    final PalettedContainer<BlockState>[] sections;
+    final SectionSummary[] summaries;
+    private final boolean[] captured;
+    private int missing;
+
+    @SuppressWarnings("unchecked")
+    PendingChunk(int sectionCount) {
+        this.sections = (PalettedContainer<BlockState>[]) new PalettedContainer[sectionCount];
+        this.summaries = new SectionSummary[sectionCount];
+        this.captured = new boolean[sectionCount];
+        this.missing = sectionCount;
+    }
+
+    PendingChunk(PalettedContainer<BlockState>[] sections, SectionSummary[] summaries) {
+        this.sections = sections;
+        this.summaries = summaries;
+        this.captured = null;
+        this.missing = 0;
+    }
+
+    static PendingChunk from(ChunkSnapshot previous, int sectionCount) {
+        if (previous != null && previous.getSectionCount() == sectionCount) {
+            return new PendingChunk(previous.copySections(), previous.copySummaries());
+        }
+        return new PendingChunk(sectionCount);
+    }
+
+    // A null section is an empty one
+    void set(int index, PalettedContainer<BlockState> section, SectionSummary summary) {
+        sections[index] = section;
+        summaries[index] = summary;
+        if (captured != null && !captured[index]) {
+            captured[index] = true;
+            missing--;
+        }
+    }
+
+    boolean isComplete() {
+        return missing == 0;
+    }
+}
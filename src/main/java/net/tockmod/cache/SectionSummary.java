@@ -0,0 +1,57 @@
+package net.tockmod.cache;
+
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import net.minecraft.block.BlockState;
+import net.minecraft.registry.Registries;
+import net.minecraft.world.chunk.PalettedContainer;
+
+// Which blocks a cached section holds and how many of each, by raw block id. Built once per
+// capture from the section's palette counts, so queries can skip or count a section without
+// decoding it.
+class SectionSummary {
+    private final long[] presence;
+    private final int[] blockIds;
+    private final int[] counts;
+
+    private SectionSummary(long[] presence, int[] blockIds, int[] counts) {
+        this.presence = presence;
+        this.blockIds = blockIds;
+        this.counts = counts;
+    }
+
+    static SectionSummary of(PalettedContainer<BlockState> container) {
+        Int2IntOpenHashMap blockCounts = new Int2IntOpenHashMap();
+        container.count((state, count) -> blockCounts.addTo(Registries.BLOCK.getRawId(state.getBlock()), count));
+
+        long[] presence = new long[(Registries.BLOCK.size() + 63) >> 6];
+        int[] blockIds = new int[blockCounts.size()];
+        int[] counts = new int[blockCounts.size()];
+        int i = 0;
+        for (Int2IntOpenHashMap.Entry entry : blockCounts.int2IntEntrySet()) {
+            int blockId = entry.getIntKey();
+            if ((blockId >> 6) < presence.length) {
+                presence[blockId >> 6] |= 1L << blockId;
+            }
+            blockIds[i] = blockId;
+            counts[i] = entry.getIntValue();
+            i++;
+        }
+        return new SectionSummary(presence, blockIds, counts);
+    }
+
+    public boolean contains(int blockId) {
+        return blockId >= 0 && (blockId >> 6) < presence.length && (presence[blockId >> 6] & (1L << blockId)) != 0;
+    }
+
+    public int count(int blockId) {
+        if (!contains(blockId)) {
+            return 0;
+        }
+        for (int i = 0; i < blockIds.length; i++) {
+            if (blockIds[i] == blockId) {
+                return counts[i];
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,200 @@
+package net.tockmod.chunk;
+
+import it.unimi.dsi.fastutil.HashCommon;
+
+import java.util.Arrays;
+
+// Open-addressing table of the server tick each chunk of one world was last active, keyed by
+// ChunkPos.toLong(), along with the chunk's decaying tick cost ("heat"). Keys, ticks and heat
+// live in parallel arrays with linear probing, so lookups and updates never box or allocate;
+// only growth and pruning rebuild the arrays.
+class ChunkActivityTable {
+    private static final int INITIAL_CAPACITY = 1024; // Must be a power of two
+    private static final float MAX_LOAD = 0.5f;
+    private static final long EMPTY = ChunkSet.EMPTY;
+    private static final long NO_ACTIVITY = Long.MIN_VALUE; // Chunks only on record for their heat
+
+    private long[] chunks;
+    private long[] lastActiveTicks;
+    private float[] heat;
+    private int mask;
+    private int size = 0;
+    private int resizeThreshold;
+
+    ChunkActivityTable() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void markActive(long chunkPos, long tick) {
+        // The slot first: inserting can grow the arrays
+        int slot = slotFor(chunkPos);
+        lastActiveTicks[slot] = tick;
+    }
+
+    // Adding cost doesn't make a chunk active, it only keeps the chunk on record
+    public void addHeat(long chunkPos, float amount) {
+        int slot = slotFor(chunkPos);
+        heat[slot] += amount;
+    }
+
+    // Server tick the chunk was last active, or -1 if it has no activity on record
+    public long getLastActive(long chunkPos) {
+        int slot = find(chunkPos);
+        return slot >= 0 && lastActiveTicks[slot] != NO_ACTIVITY ? lastActiveTicks[slot] : -1;
+    }
+
+    public float getHeat(long chunkPos) {
+        int slot = find(chunkPos);
+        return slot >= 0 ? heat[slot] : 0;
+    }
+
+    public void decayHeat(float factor) {
+        for (int i = 0; i < heat.length; i++) {
+            heat[i] *= factor;
+        }
+    }
+
+    // Fills the arrays with up to their length hottest chunks, hottest first, and returns how many
+    public int collectHottest(long[] outChunks, float[] outHeat) {
+        if (outHeat.length == 0) {
+            return 0;
+        }
+
+        int count = 0;
+        for (int i = 0; i < chunks.length; i++) {
+            if (chunks[i] == EMPTY || heat[i] <= 0 || (count == outHeat.length && heat[i] <= outHeat[count - 1])) {
+                continue;
+            }
+
+            // Insertion into the short sorted list, dropping its coolest entry when full
+            int at = Math.min(count, outHeat.length - 1);
+            while (at > 0 && outHeat[at - 1] < heat[i]) {
+                if (at < outHeat.length) {
+                    outHeat[at] = outHeat[at - 1];
+                    outChunks[at] = outChunks[at - 1];
+                }
+                at--;
+            }
+            outHeat[at] = heat[i];
+            outChunks[at] = chunks[i];
+            count = Math.min(count + 1, outHeat.length);
+        }
+        return count;
+    }
+
+    public int countActiveSince(long tick) {
+        int count = 0;
+        for (int i = 0; i < chunks.length; i++) {
+            if (chunks[i] != EMPTY && lastActiveTicks[i] >= tick) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public void collectActiveSince(long tick, ChunkSet out) {
+        for (int i = 0; i < chunks.length; i++) {
+            if (chunks[i] != EMPTY && lastActiveTicks[i] >= tick) {
+                out.add(chunks[i]);
+            }
+        }
+    }
+
+    // Drops every chunk last active before the given tick whose heat has also decayed below
+    // minHeat, returning how many were dropped
+    public int pruneInactiveBefore(long tick, float minHeat) {
+        int retained = 0;
+        for (int i = 0; i < chunks.length; i++) {
+            if (chunks[i] != EMPTY && (lastActiveTicks[i] >= tick || heat[i] >= minHeat)) {
+                retained++;
+            }
+        }
+
+        int removed = size - retained;
+        if (removed > 0) {
+            int capacity = chunks.length;
+            while (capacity > INITIAL_CAPACITY && retained < (capacity >>> 3)) {
+                capacity >>>= 1;
+            }
+            rebuild(capacity, tick, minHeat);
+        }
+        return removed;
+    }
+
+    public void clear() {
+        allocate(INITIAL_CAPACITY);
+        size = 0;
+    }
+
+    private int find(long chunkPos) {
+        int slot = hash(chunkPos) & mask;
+        long key;
+        while ((key = chunks[slot]) != EMPTY) {
+            if (key == chunkPos) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    // Slot of the chunk, inserted with no activity and no heat if it isn't on record yet
+    private int slotFor(long chunkPos) {
+        int slot = hash(chunkPos) & mask;
+        long key;
+        while ((key = chunks[slot]) != EMPTY) {
+            if (key == chunkPos) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        chunks[slot] = chunkPos;
+        lastActiveTicks[slot] = NO_ACTIVITY;
+        heat[slot] = 0;
+        if (++size > resizeThreshold) {
+            rebuild(chunks.length << 1, NO_ACTIVITY, 0);
+            return find(chunkPos);
+        }
+        return slot;
+    }
+
+    private void rebuild(int capacity, long minTick, float minHeat) {
+        long[] oldChunks = chunks;
+        long[] oldTicks = lastActiveTicks;
+        float[] oldHeat = heat;
+        allocate(capacity);
+        size = 0;
+
+        for (int i = 0; i < oldChunks.length; i++) {
+            if (oldChunks[i] == EMPTY || (oldTicks[i] < minTick && oldHeat[i] < minHeat)) {
+                continue;
+            }
+            int slot = hash(oldChunks[i]) & mask;
+            while (chunks[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            chunks[slot] = oldChunks[i];
+            lastActiveTicks[slot] = oldTicks[i];
+            heat[slot] = oldHeat[i];
+            size++;
+        }
+    }
+
+    private void allocate(int capacity) {
+        chunks = new long[capacity];
+        Arrays.fill(chunks, EMPTY);
+        lastActiveTicks = new long[capacity];
+        heat = new float[capacity];
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * MAX_LOAD);
+    }
+
+    private static int hash(long chunkPos) {
+        return (int) HashCommon.mix(chunkPos);
+    }
+}
@@ -1,137 +1,297 @@
 package net.tockmod.chunk;
 
+import it.unimi.dsi.fastutil.HashCommon;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.chunk.WorldChunk;
 import net.tockmod.config.ModConfig;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import net.tockmod.jfr.ColdSkipEvent;
+import net.tockmod.metrics.Counter;
+import net.tockmod.metrics.Gauge;
+import net.tockmod.metrics.Histogram;
+import net.tockmod.metrics.MetricsRegistry;
+import net.tockmod.tick.ThrottleListener;
+import net.tockmod.world.PerWorld;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicLong;
+public class ChunkFuseManager implements ThrottleListener {
+    private static final Counter PRUNED = MetricsRegistry.counter("chunkfuse.pruned");
+    private static final Counter CAUGHT_UP = MetricsRegistry.counter("chunkfuse.caught_up");
+    private static final Histogram CATCH_UP_TICKS = MetricsRegistry.histogram("chunkfuse.catch_up_ticks");
+    private static final Gauge TRACKED_CHUNKS = MetricsRegistry.gauge("chunkfuse.tracked_chunks");
+    private static final Gauge HOT_CHUNKS = MetricsRegistry.gauge("chunkfuse.hot_chunks");
+    private static final Gauge VIEWED_CHUNKS = MetricsRegistry.gauge("chunkfuse.viewed_chunks");
+    // Owned by the server thread, all activity signals come from world ticking
+    private final PerWorld<WorldActivity> chunkActivity = new PerWorld<>(world -> new WorldActivity());
+    private static final int CLEANUP_INTERVAL_TICKS = 20; // Cleanup every second
+    private static final double MAX_TIMEOUT_REDUCTION = 0.75; // Share of the cold timeout dropped at full throttle
+    private static final float MIN_HEAT_NANOS = 100_000; // Heat below this no longer keeps an inactive chunk on record
+    private volatile double throttleLevel = 0;
+    private final PlayerChunkTracker playerChunkTracker = new PlayerChunkTracker();
 
-public class ChunkFuseManager {
-    private static final Logger LOGGER = LoggerFactory.getLogger("Tock/ChunkFuse");
-    private final Map<ChunkPos, ChunkActivityData> chunkActivityMap = new ConcurrentHashMap<>();
-    private final AtomicLong lastCleanupTime = new AtomicLong(0);
-    private static final long CLEANUP_INTERVAL = 1000; // Cleanup every second
+    // Refreshed once per server tick so lookups never read the clock or the config
+    private boolean enabled = false;
+    private boolean suspensionEnabled = false;
+    private long currentTick = 0;
+    private long coldTimeoutTicks = 0;
+    private int heatSampleInterval = 0;
+    private int heatSampleMask = -1;
+    private float heatDecay = 1;
+    private long lastCleanupTick = 0;
+    private int coldSkipsThisTick = 0;
 
     public void onServerTickStart(MinecraftServer server) {
-        if (!ModConfig.getInstance().chunkfuseEnabled) {
+        reportColdSkips();
+        // Cold status follows game time, so a lagging server doesn't see chunks go cold early.
+        // Kept moving while disabled so suspended chunks are still decided afresh every tick.
+        currentTick = server.getTicks();
+        enabled = ModConfig.getInstance().chunkfuseEnabled;
+        suspensionEnabled = enabled && ModConfig.getInstance().suspendColdChunks;
+        if (!enabled) {
             return;
         }
 
-        long currentTime = System.currentTimeMillis();
-        
+        coldTimeoutTicks = getColdTimeoutTicks();
+        int interval = ModConfig.getInstance().heatSampleInterval;
+        heatSampleInterval = interval > 0 ? HashCommon.nextPowerOfTwo(interval) : 0;
+        heatSampleMask = heatSampleInterval - 1;
+        // Applied once per cleanup, so heat halves every heatHalfLifeSeconds
+        heatDecay = (float) Math.pow(0.5, CLEANUP_INTERVAL_TICKS / (Math.max(1, ModConfig.getInstance().heatHalfLifeSeconds) * 20.0));
+
+        // Players are the roots of the activity graph; only border crossings cost anything here
+        playerChunkTracker.update(server);
+
         // Periodic cleanup of old chunks
-        if (currentTime - lastCleanupTime.get() > CLEANUP_INTERVAL) {
-            int beforeSize = chunkActivityMap.size();
-            cleanupInactiveChunks(currentTime);
-            int afterSize = chunkActivityMap.size();
-            if (beforeSize != afterSize) {
-                LOGGER.info("Cleaned up {} inactive chunks ({} remaining)", beforeSize - afterSize, afterSize);
+        if (currentTick - lastCleanupTick >= CLEANUP_INTERVAL_TICKS) {
+            // Force-loaded chunks stay active for as long as their ticket holds
+            for (ServerWorld world : server.getWorlds()) {
+                for (long chunkPos : world.getForcedChunks()) {
+                    markChunkActive(world, chunkPos);
+                }
+            }
+
+            int remaining = 0;
+            for (WorldActivity activity : chunkActivity.values()) {
+                activity.table.decayHeat(heatDecay);
+                PRUNED.add(activity.table.pruneInactiveBefore(currentTick - coldTimeoutTicks, MIN_HEAT_NANOS));
+                remaining += activity.table.size();
             }
-            lastCleanupTime.set(currentTime);
+            TRACKED_CHUNKS.set(remaining);
+            lastCleanupTick = currentTick;
+        }
 
-            // Log chunk activity summary
-            logChunkActivitySummary();
+        // Everything ticking this tick sees the same hot set, whatever gets marked meanwhile
+        int hotChunks = 0;
+        int viewedChunks = 0;
+        for (ServerWorld world : server.getWorlds()) {
+            WorldActivity activity = chunkActivity.get(world);
+            activity.publish(currentTick - coldTimeoutTicks);
+            hotChunks += activity.hotChunks.size();
+            viewedChunks += playerChunkTracker.getViewedChunkCount(world);
         }
+        HOT_CHUNKS.set(hotChunks);
+        VIEWED_CHUNKS.set(viewedChunks);
     }
 
     public void onServerTickEnd(MinecraftServer server) {
         // No-op for now
     }
 
+    @Override
+    public void onThrottleChanged(double level) {
+        throttleLevel = level;
+    }
+
+    // Chunks go cold sooner under load
+    public long getColdTimeoutTicks() {
+        return (long) (ModConfig.getInstance().chunkColdTimeout * 20 * (1 - MAX_TIMEOUT_REDUCTION * throttleLevel));
+    }
+
+    // Counted per tick and reported as one event, skips happen once per cold mob per tick
+    public void recordColdSkip() {
+        coldSkipsThisTick++;
+    }
+
+    private void reportColdSkips() {
+        if (coldSkipsThisTick == 0) {
+            return;
+        }
+        ColdSkipEvent event = new ColdSkipEvent();
+        if (event.shouldCommit()) {
+            event.tick = currentTick;
+            event.skippedMobTicks = coldSkipsThisTick;
+            event.commit();
+        }
+        coldSkipsThisTick = 0;
+    }
+
+    public void markChunkActive(ServerWorld world, long chunkPos) {
+        if (!enabled) {
+            return;
+        }
+
+        chunkActivity.get(world).table.markActive(chunkPos, currentTick);
+    }
+
     public void markChunkActive(ServerWorld world, ChunkPos pos) {
-        if (!ModConfig.getInstance().chunkfuseEnabled) {
+        markChunkActive(world, pos.toLong());
+    }
+
+    public void markChunkActive(ServerWorld world, BlockPos pos) {
+        markChunkActive(world, ChunkPos.toLong(pos.getX() >> 4, pos.getZ() >> 4));
+    }
+
+    // Redstone and hoppers reach across chunk borders, so a chunk running them also keeps its
+    // neighbours active, one hop out. Called for every scheduled tick, so each chunk spreads
+    // at most once per tick and runs of ticks in the same chunk stop at the first check.
+    public void markMachineActive(ServerWorld world, BlockPos pos) {
+        if (!enabled) {
+            return;
+        }
+
+        int chunkX = pos.getX() >> 4;
+        int chunkZ = pos.getZ() >> 4;
+        long chunkPos = ChunkPos.toLong(chunkX, chunkZ);
+        WorldActivity activity = chunkActivity.get(world);
+        if (chunkPos == activity.lastSpreadChunk && currentTick == activity.lastSpreadTick) {
+            return;
+        }
+        activity.lastSpreadChunk = chunkPos;
+        activity.lastSpreadTick = currentTick;
+        if (!activity.spreadThisTick.add(chunkPos)) {
             return;
         }
 
-        ChunkActivityData data = chunkActivityMap.computeIfAbsent(pos, 
-            k -> new ChunkActivityData(world));
-        
-        data.updateLastActivity();
-        LOGGER.debug("Marked chunk {} in {} as active", pos, world.getRegistryKey().getValue());
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dz = -1; dz <= 1; dz++) {
+                activity.table.markActive(ChunkPos.toLong(chunkX + dx, chunkZ + dz), currentTick);
+            }
+        }
+    }
+
+    // Nonzero start time if this tick of an entity, block entity or scheduled block is one of
+    // the sampled ones; pass it to endCostSample when the tick is done. Picked by hashing the
+    // key (entity id or block position) with the tick, so the choice doesn't follow tick order
+    // and every key gets sampled at the same rate over time.
+    public long startCostSample(long key) {
+        if (!enabled || heatSampleInterval == 0 || (HashCommon.murmurHash3(key ^ currentTick) & heatSampleMask) != 0) {
+            return 0;
+        }
+        return System.nanoTime();
+    }
+
+    public void endCostSample(ServerWorld world, long chunkPos, long startNanos) {
+        if (startNanos == 0) {
+            return;
+        }
+        // Each sample stands in for the ticks that weren't timed
+        chunkActivity.get(world).table.addHeat(chunkPos, (float) (System.nanoTime() - startNanos) * heatSampleInterval);
+    }
+
+    // Estimated milliseconds per tick the chunk has been costing lately
+    public double getChunkCost(ServerWorld world, long chunkPos) {
+        return heatToCost(chunkActivity.get(world).table.getHeat(chunkPos));
+    }
+
+    // Fills the arrays with the costliest chunks of the world, costliest first, in milliseconds
+    // per tick; returns how many were filled
+    public int getCostliestChunks(ServerWorld world, long[] outChunks, double[] outCosts) {
+        float[] heat = new float[outChunks.length];
+        int count = chunkActivity.get(world).table.collectHottest(outChunks, heat);
+        for (int i = 0; i < count; i++) {
+            outCosts[i] = heatToCost(heat[i]);
+        }
+        return count;
+    }
+
+    // Heat settles where decay takes away what a cleanup interval adds
+    private double heatToCost(float heat) {
+        return heat * (1 - heatDecay) / CLEANUP_INTERVAL_TICKS / 1_000_000.0;
+    }
+
+    public void onServerStopped() {
+        playerChunkTracker.clear();
+        chunkActivity.clear();
+        lastCleanupTick = 0;
     }
 
-    public boolean isChunkCold(ChunkPos pos) {
-        if (!ModConfig.getInstance().chunkfuseEnabled) {
+    // Answered from this tick's snapshot; called for every mob every tick, so it never allocates
+    public boolean isChunkCold(ServerWorld world, long chunkPos) {
+        if (!enabled) {
             return false;
         }
 
-        ChunkActivityData data = chunkActivityMap.get(pos);
-        if (data == null) {
-            LOGGER.debug("Chunk {} has no activity data, considered cold", pos);
-            return true;
+        // Chunks a player can see are never cold
+        if (playerChunkTracker.isViewed(world, chunkPos)) {
+            return false;
         }
 
-        long inactiveTime = System.currentTimeMillis() - data.lastActivity;
-        boolean isCold = inactiveTime > ModConfig.getInstance().chunkColdTimeout * 1000;
-        if (isCold) {
-            LOGGER.debug("Chunk {} is cold (inactive for {}ms)", pos, inactiveTime);
-        }
-        return isCold;
-    }
-
-    private void logChunkActivitySummary() {
-        LOGGER.info("=== Chunk Activity Summary ===");
-        LOGGER.info("Total active chunks: {}", chunkActivityMap.size());
-        
-        // Group chunks by world
-        Map<ServerWorld, Long> chunksByWorld = chunkActivityMap.entrySet().stream()
-            .collect(java.util.stream.Collectors.groupingBy(
-                entry -> entry.getValue().world,
-                java.util.stream.Collectors.counting()));
-        
-        chunksByWorld.forEach((world, count) -> 
-            LOGGER.info("  {}: {} chunks", world.getRegistryKey().getValue(), count));
-        
-        // Count hot vs cold chunks
-        long hotChunks = chunkActivityMap.values().stream()
-            .filter(data -> data.isHot())
-            .count();
-        
-        LOGGER.info("Hot chunks: {}", hotChunks);
-        LOGGER.info("Cold chunks: {}", chunkActivityMap.size() - hotChunks);
-    }
-
-    private void cleanupInactiveChunks(long currentTime) {
-        chunkActivityMap.entrySet().removeIf(entry -> {
-            ChunkActivityData data = entry.getValue();
-            boolean isInactive = currentTime - data.getLastActivity() > 
-                ModConfig.getInstance().chunkColdTimeout * 1000;
-            
-            if (isInactive) {
-                LOGGER.debug("Removing inactive chunk {} in {}", 
-                    entry.getKey(), 
-                    data.world.getRegistryKey().getValue());
-            }
-            
-            return isInactive;
-        });
+        return !chunkActivity.get(world).hotChunks.contains(chunkPos);
     }
 
-    private static class ChunkActivityData {
-        private final ServerWorld world;
-        private long lastActivity;
+    public boolean isChunkCold(ServerWorld world, ChunkPos pos) {
+        return isChunkCold(world, pos.toLong());
+    }
 
-        public ChunkActivityData(ServerWorld world) {
-            this.world = world;
-            this.lastActivity = System.currentTimeMillis();
+    // Whether the chunk's block entities and random ticks are skipped this tick. Decided once per
+    // chunk per tick, from tickChunk for chunks that are random-ticked; later calls in the same tick
+    // return the same answer. Suspended time is owed as a debt and settled when the chunk is first
+    // decided hot again, and owed random ticks are paid off a little on each tick after that.
+    public boolean updateSuspension(ServerWorld world, WorldChunk chunk, boolean randomTicked) {
+        SuspendableChunk suspendable = (SuspendableChunk) chunk;
+        long suspendedSince = suspendable.tock$getSuspendedSince();
+        if (suspendable.tock$getCheckedTick() == currentTick) {
+            return suspendedSince >= 0;
         }
+        suspendable.tock$setCheckedTick(currentTick);
 
-        public void updateLastActivity() {
-            this.lastActivity = System.currentTimeMillis();
+        if (suspensionEnabled && isChunkCold(world, chunk.getPos().toLong())) {
+            if (suspendedSince < 0) {
+                suspendable.tock$setSuspendedSince(currentTick);
+            }
+            return true;
         }
 
-        public long getLastActivity() {
-            return lastActivity;
+        if (suspendedSince >= 0) {
+            suspendable.tock$setSuspendedSince(-1);
+            long debt = currentTick - suspendedSince;
+            ColdChunkCatchUp.settle(world, chunk, debt, randomTicked);
+            CAUGHT_UP.increment();
+            CATCH_UP_TICKS.record(debt);
+        }
+        if (randomTicked) {
+            ColdChunkCatchUp.payRandomTickDebt(world, chunk);
         }
+        return false;
+    }
+
+    // Read by every block entity ticker of the chunk. Chunks that aren't random-ticked never pass
+    // through tickChunk, so the first block entity decides for them.
+    public boolean isSuspended(ServerWorld world, WorldChunk chunk) {
+        SuspendableChunk suspendable = (SuspendableChunk) chunk;
+        if (suspendable.tock$getCheckedTick() != currentTick) {
+            return updateSuspension(world, chunk, false);
+        }
+        return suspendable.tock$getSuspendedSince() >= 0;
+    }
+
+    private static class WorldActivity {
+        private final ChunkActivityTable table = new ChunkActivityTable();
+        // Double-buffered: the published set is left alone until the next swap
+        private ChunkSet hotChunks = new ChunkSet();
+        private ChunkSet spare = new ChunkSet();
+        private final ChunkSet spreadThisTick = new ChunkSet();
+        private long lastSpreadChunk = ChunkSet.EMPTY;
+        private long lastSpreadTick = -1;
 
-        public boolean isHot() {
-            return System.currentTimeMillis() - lastActivity < 
-                ModConfig.getInstance().chunkColdTimeout * 1000;
+        void publish(long activeSinceTick) {
+            spreadThisTick.clear();
+            ChunkSet next = spare;
+            next.clear();
+            table.collectActiveSince(activeSinceTick, next);
+            spare = hotChunks;
+            hotChunks = next;
         }
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,68 @@
+package net.tockmod.chunk;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+// Renders a square of per-chunk tick costs as a PNG, a few pixels per chunk, north up. Costs
+// are on a log scale from black through red and yellow to white at the costliest chunk, so a
+// single lag machine doesn't wash out everything else.
+public final class ChunkHeatmapImage {
+    private static final int PIXELS_PER_CHUNK = 4;
+    private static final double MIN_COST_MS = 0.001;
+    private static final int CENTER_COLOR = 0x00FFFF;
+
+    private ChunkHeatmapImage() {
+    }
+
+    // costs holds size x size chunks, row by row from the north-west corner
+    public static void write(double[] costs, int size, Path file) throws IOException {
+        double max = MIN_COST_MS;
+        for (double cost : costs) {
+            max = Math.max(max, cost);
+        }
+        double scale = Math.log1p(max / MIN_COST_MS);
+
+        BufferedImage image = new BufferedImage(size * PIXELS_PER_CHUNK, size * PIXELS_PER_CHUNK, BufferedImage.TYPE_INT_RGB);
+        for (int z = 0; z < size; z++) {
+            for (int x = 0; x < size; x++) {
+                double cost = costs[z * size + x];
+                int rgb = cost > 0 ? ramp(Math.log1p(cost / MIN_COST_MS) / scale) : 0;
+                image.setRGB(x * PIXELS_PER_CHUNK, z * PIXELS_PER_CHUNK, PIXELS_PER_CHUNK, PIXELS_PER_CHUNK,
+                    filled(rgb), 0, PIXELS_PER_CHUNK);
+            }
+        }
+
+        // Outline the chunk the export was taken from
+        int center = (size / 2) * PIXELS_PER_CHUNK;
+        for (int i = 0; i < PIXELS_PER_CHUNK; i++) {
+            image.setRGB(center + i, center, CENTER_COLOR);
+            image.setRGB(center + i, center + PIXELS_PER_CHUNK - 1, CENTER_COLOR);
+            image.setRGB(center, center + i, CENTER_COLOR);
+            image.setRGB(center + PIXELS_PER_CHUNK - 1, center + i, CENTER_COLOR);
+        }
+
+        Files.createDirectories(file.getParent());
+        ImageIO.write(image, "png", file.toFile());
+    }
+
+    private static int ramp(double t) {
+        int red = channel(t * 3);
+        int green = channel(t * 3 - 1);
+        int blue = channel(t * 3 - 2);
+        return red << 16 | green << 8 | blue;
+    }
+
+    private static int channel(double value) {
+        return (int) Math.round(Math.max(0, Math.min(1, value)) * 255);
+    }
+
+    private static int[] filled(int rgb) {
+        int[] pixels = new int[PIXELS_PER_CHUNK * PIXELS_PER_CHUNK];
+        Arrays.fill(pixels, rgb);
+        return pixels;
+    }
+}
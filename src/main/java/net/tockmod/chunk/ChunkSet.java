@@ -0,0 +1,91 @@
+package net.tockmod.chunk;
+
+import it.unimi.dsi.fastutil.HashCommon;
+
+import java.util.Arrays;
+
+// Open-addressing set of ChunkPos.toLong() keys. Cleared and refilled in place, so a set that
+// is reused tick after tick only allocates when it has to grow.
+class ChunkSet {
+    private static final int INITIAL_CAPACITY = 256; // Must be a power of two
+    private static final float MAX_LOAD = 0.5f;
+    // ChunkPos.toLong(0, Integer.MIN_VALUE), far outside any world border
+    static final long EMPTY = Long.MIN_VALUE;
+
+    private long[] chunks;
+    private int mask;
+    private int size = 0;
+    private int resizeThreshold;
+
+    ChunkSet() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(long chunkPos) {
+        int slot = hash(chunkPos) & mask;
+        long key;
+        while ((key = chunks[slot]) != EMPTY) {
+            if (key == chunkPos) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    // Returns false if the chunk was already in the set
+    public boolean add(long chunkPos) {
+        int slot = hash(chunkPos) & mask;
+        long key;
+        while ((key = chunks[slot]) != EMPTY) {
+            if (key == chunkPos) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        chunks[slot] = chunkPos;
+        if (++size > resizeThreshold) {
+            resize(chunks.length << 1);
+        }
+        return true;
+    }
+
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(chunks, EMPTY);
+            size = 0;
+        }
+    }
+
+    private void resize(int capacity) {
+        long[] oldChunks = chunks;
+        allocate(capacity);
+        for (long chunkPos : oldChunks) {
+            if (chunkPos == EMPTY) {
+                continue;
+            }
+            int slot = hash(chunkPos) & mask;
+            while (chunks[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            chunks[slot] = chunkPos;
+        }
+    }
+
+    private void allocate(int capacity) {
+        chunks = new long[capacity];
+        Arrays.fill(chunks, EMPTY);
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * MAX_LOAD);
+    }
+
+    private static int hash(long chunkPos) {
+        // x and z sit in separate halves of the key, so mix both into the low bits
+        return (int) HashCommon.mix(chunkPos);
+    }
+}
@@ -0,0 +1,152 @@
+package net.tockmod.chunk;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.block.entity.AbstractFurnaceBlockEntity;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.fluid.FluidState;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.world.GameRules;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.WorldChunk;
+import net.tockmod.config.ModConfig;
+import net.tockmod.mixin.block.AbstractFurnaceBlockEntityAccessor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Settles the time a chunk spent suspended without replaying every missed tick. Furnaces jump
+// from one event (item done, fuel used up) to the next. Random ticks are owed in full, as many
+// picks per section as the chunk missed, and paid off over the following ticks at up to a
+// configured number of extra picks per section per tick, so a long suspension grows crops as far
+// as it would have without landing on a single tick.
+class ColdChunkCatchUp {
+    private ColdChunkCatchUp() {
+    }
+
+    public static void settle(ServerWorld world, WorldChunk chunk, long ticks, boolean randomTicked) {
+        if (ticks <= 0) {
+            return;
+        }
+
+        ModConfig config = ModConfig.getInstance();
+        // Furnace ticks can change block states, so don't iterate the live map
+        List<BlockEntity> blockEntities = new ArrayList<>(chunk.getBlockEntities().values());
+        for (BlockEntity blockEntity : blockEntities) {
+            if (blockEntity instanceof AbstractFurnaceBlockEntity furnace && !furnace.isRemoved()) {
+                settleFurnace(world, furnace, ticks, config.maxCatchUpEvents);
+            }
+        }
+
+        // Chunks too far from players for random ticks missed none
+        if (randomTicked) {
+            SuspendableChunk suspendable = (SuspendableChunk) chunk;
+            int randomTickSpeed = world.getGameRules().getInt(GameRules.RANDOM_TICK_SPEED);
+            suspendable.tock$setRandomTickDebt(suspendable.tock$getRandomTickDebt() + owedPicks(ticks, randomTickSpeed));
+        }
+    }
+
+    public static void payRandomTickDebt(ServerWorld world, WorldChunk chunk) {
+        SuspendableChunk suspendable = (SuspendableChunk) chunk;
+        long debt = suspendable.tock$getRandomTickDebt();
+        if (debt <= 0) {
+            return;
+        }
+
+        int picks = picksThisTick(debt, ModConfig.getInstance().maxCatchUpRandomTicks);
+        // A cap of 0 turns catch-up off, so the debt is dropped rather than kept forever
+        suspendable.tock$setRandomTickDebt(picks > 0 ? debt - picks : 0);
+        if (picks > 0) {
+            settleRandomTicks(world, chunk, picks);
+        }
+    }
+
+    static long owedPicks(long ticks, int randomTickSpeed) {
+        return ticks * Math.max(0, randomTickSpeed);
+    }
+
+    static int picksThisTick(long debt, int maxPerTick) {
+        return (int) Math.min(debt, Math.max(0, maxPerTick));
+    }
+
+    private static void settleFurnace(ServerWorld world, AbstractFurnaceBlockEntity furnace, long ticks, int maxEvents) {
+        AbstractFurnaceBlockEntityAccessor accessor = (AbstractFurnaceBlockEntityAccessor) furnace;
+        BlockPos pos = furnace.getPos();
+        long remaining = ticks;
+        int events = 0;
+        // What the last real tick showed: the current item advanced, or the fire burned with
+        // nothing it could smelt (no input, no recipe or a full output slot). Until a real tick
+        // has shown one or the other nothing is skipped.
+        boolean smelting = false;
+        boolean idle = false;
+
+        while (remaining > 0 && events < maxEvents) {
+            int lit = accessor.tock$getLitTimeRemaining();
+            int cooking = accessor.tock$getCookingTimeSpent();
+            if (lit > 0 && (smelting || idle)) {
+                // Skip ahead to just before the next event, then let a real tick handle it
+                long untilEvent = smelting ? Math.min(lit, accessor.tock$getCookingTotalTime() - cooking) : lit;
+                long skip = Math.min(remaining, untilEvent) - 1;
+                if (skip > 0) {
+                    accessor.tock$setLitTimeRemaining((int) (lit - skip));
+                    if (smelting) {
+                        cooking += (int) skip;
+                        accessor.tock$setCookingTimeSpent(cooking);
+                    }
+                    remaining -= skip;
+                }
+            }
+
+            AbstractFurnaceBlockEntity.tick(world, pos, world.getBlockState(pos), furnace);
+            remaining--;
+            events++;
+
+            int litAfter = accessor.tock$getLitTimeRemaining();
+            int cookingAfter = accessor.tock$getCookingTimeSpent();
+            // A finished or reset item leaves cooking at zero, so the next tick probes again
+            smelting = cookingAfter == cooking + 1;
+            idle = litAfter > 0 && cooking == 0 && cookingAfter == 0;
+
+            if (litAfter <= 0) {
+                // The fire went out and couldn't be relit, so the rest of the time only cools
+                // the current item down, two ticks of progress per tick
+                if (cookingAfter > 0) {
+                    accessor.tock$setCookingTimeSpent((int) Math.max(0, cookingAfter - 2 * remaining));
+                }
+                break;
+            }
+        }
+        furnace.markDirty();
+    }
+
+    private static void settleRandomTicks(ServerWorld world, WorldChunk chunk, int picks) {
+        int startX = chunk.getPos().getStartX();
+        int startZ = chunk.getPos().getStartZ();
+        ChunkSection[] sections = chunk.getSectionArray();
+
+        for (int index = 0; index < sections.length; index++) {
+            ChunkSection section = sections[index];
+            if (!section.hasRandomTicks()) {
+                continue;
+            }
+
+            int startY = ChunkSectionPos.getBlockCoord(chunk.sectionIndexToCoord(index));
+            for (int i = 0; i < picks; i++) {
+                int x = world.random.nextInt(16);
+                int y = world.random.nextInt(16);
+                int z = world.random.nextInt(16);
+                BlockPos pos = new BlockPos(startX + x, startY + y, startZ + z);
+
+                BlockState state = section.getBlockState(x, y, z);
+                if (state.hasRandomTicks()) {
+                    state.randomTick(world, pos, world.random);
+                }
+                FluidState fluidState = state.getFluidState();
+                if (fluidState.hasRandomTicks()) {
+                    fluidState.onRandomTick(world, pos, world.random);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package net.tockmod.chunk;
+
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.ChunkPos;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+
+// Keeps a per-world count of how many players can see each chunk. A player's square of view
+// is only touched when they cross a chunk border, change world or the view distance changes,
+// and then only the chunks entering or leaving the square are updated.
+class PlayerChunkTracker {
+    private final Map<ServerWorld, Long2IntOpenHashMap> viewers = new IdentityHashMap<>();
+    private final Map<UUID, PlayerView> playerViews = new HashMap<>();
+    private int updateGeneration = 0;
+
+    public void update(MinecraftServer server) {
+        int radius = server.getPlayerManager().getViewDistance();
+        int generation = ++updateGeneration;
+
+        for (ServerPlayerEntity player : server.getPlayerManager().getPlayerList()) {
+            ServerWorld world = player.getServerWorld();
+            ChunkPos chunk = player.getChunkPos();
+            PlayerView view = playerViews.get(player.getUuid());
+
+            if (view == null) {
+                view = new PlayerView(world, chunk.x, chunk.z, radius);
+                playerViews.put(player.getUuid(), view);
+                addSquare(world, chunk.x, chunk.z, radius, 0, 0, -1);
+            } else if (view.world != world || view.radius != radius) {
+                removeSquare(view.world, view.chunkX, view.chunkZ, view.radius, 0, 0, -1);
+                addSquare(world, chunk.x, chunk.z, radius, 0, 0, -1);
+                view.move(world, chunk.x, chunk.z, radius);
+            } else if (view.chunkX != chunk.x || view.chunkZ != chunk.z) {
+                // Same world and radius: only the strips entering and leaving the square change
+                removeSquare(world, view.chunkX, view.chunkZ, radius, chunk.x, chunk.z, radius);
+                addSquare(world, chunk.x, chunk.z, radius, view.chunkX, view.chunkZ, radius);
+                view.move(world, chunk.x, chunk.z, radius);
+            }
+            view.generation = generation;
+        }
+
+        // Players that disconnected since the last update
+        Iterator<PlayerView> it = playerViews.values().iterator();
+        while (it.hasNext()) {
+            PlayerView view = it.next();
+            if (view.generation != generation) {
+                removeSquare(view.world, view.chunkX, view.chunkZ, view.radius, 0, 0, -1);
+                it.remove();
+            }
+        }
+    }
+
+    public boolean isViewed(ServerWorld world, long chunkPos) {
+        Long2IntOpenHashMap counts = viewers.get(world);
+        return counts != null && counts.get(chunkPos) > 0;
+    }
+
+    public int getViewedChunkCount(ServerWorld world) {
+        Long2IntOpenHashMap counts = viewers.get(world);
+        return counts != null ? counts.size() : 0;
+    }
+
+    public void clear() {
+        viewers.clear();
+        playerViews.clear();
+    }
+
+    // Chunks inside the (exceptX, exceptZ, exceptRadius) square are skipped; a radius of -1 skips none
+    private void addSquare(ServerWorld world, int centerX, int centerZ, int radius, int exceptX, int exceptZ, int exceptRadius) {
+        Long2IntOpenHashMap counts = viewers.computeIfAbsent(world, w -> new Long2IntOpenHashMap());
+        for (int x = centerX - radius; x <= centerX + radius; x++) {
+            for (int z = centerZ - radius; z <= centerZ + radius; z++) {
+                if (!inSquare(x, z, exceptX, exceptZ, exceptRadius)) {
+                    counts.addTo(ChunkPos.toLong(x, z), 1);
+                }
+            }
+        }
+    }
+
+    private void removeSquare(ServerWorld world, int centerX, int centerZ, int radius, int exceptX, int exceptZ, int exceptRadius) {
+        Long2IntOpenHashMap counts = viewers.get(world);
+        if (counts == null) {
+            return;
+        }
+        for (int x = centerX - radius; x <= centerX + radius; x++) {
+            for (int z = centerZ - radius; z <= centerZ + radius; z++) {
+                if (!inSquare(x, z, exceptX, exceptZ, exceptRadius)) {
+                    long key = ChunkPos.toLong(x, z);
+                    if (counts.addTo(key, -1) <= 1) {
+                        counts.remove(key);
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean inSquare(int x, int z, int centerX, int centerZ, int radius) {
+        return Math.abs(x - centerX) <= radius && Math.abs(z - centerZ) <= radius;
+    }
+
+    private static class PlayerView {
+        private ServerWorld world;
+        private int chunkX;
+        private int chunkZ;
+        private int radius;
+        private int generation;
+
+        PlayerView(ServerWorld world, int chunkX, int chunkZ, int radius) {
+            move(world, chunkX, chunkZ, radius);
+        }
+
+        void move(ServerWorld world, int chunkX, int chunkZ, int radius) {
+            this.world = world;
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+            this.radius = radius;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package net.tockmod.chunk;
+
+// Implemented on WorldChunk by mixin; remembers since which server tick the chunk's block
+// entities and random ticks have been suspended, or -1 while it is ticking normally, the tick
+// that was last decided on, and the random picks per section still owed from past suspensions
+public interface SuspendableChunk {
+    long tock$getSuspendedSince();
+
+    void tock$setSuspendedSince(long tick);
+
+    long tock$getCheckedTick();
+
+    void tock$setCheckedTick(long tick);
+
+    long tock$getRandomTickDebt();
+
+    void tock$setRandomTickDebt(long picks);
+}
@@ -1,16 +1,54 @@
 package net.tockmod.command;
 
 import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.context.CommandContext;
+import net.minecraft.block.Block;
+import net.minecraft.command.CommandSource;
+import net.minecraft.command.argument.IdentifierArgumentType;
+import net.minecraft.entity.EntityType;
+import net.minecraft.registry.Registries;
+import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.command.CommandManager;
 import net.minecraft.server.command.ServerCommandSource;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.text.ClickEvent;
+import net.minecraft.text.HoverEvent;
 import net.minecraft.text.Text;
+import net.minecraft.util.Formatting;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.Heightmap;
 import net.tockmod.TockMod;
+import net.tockmod.chunk.ChunkHeatmapImage;
 import net.tockmod.config.ModConfig;
+import net.tockmod.entity.EntityCostTracker;
+import net.tockmod.metrics.MetricsRegistry;
+import net.tockmod.profiler.SamplingProfiler;
+import net.tockmod.tick.CostProfile;
+import net.tockmod.tick.NeuroTickController;
+import net.tockmod.tick.TickCategory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 public class TockCommands {
     private static final Logger LOGGER = LoggerFactory.getLogger("Tock/Commands");
+    private static final int DEFAULT_QUERY_RADIUS = 256;
+    private static final int MAX_QUERY_RADIUS = 1024;
+    private static final int LISTED_POSITIONS = 10;
+    private static final int HEATMAP_CHUNKS = 10;
+    private static final int ENTITY_COST_TYPES = 5;
+    private static final int DEFAULT_HEATMAP_RADIUS = 32; // In chunks
+    private static final int MAX_HEATMAP_RADIUS = 256;
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
 
     public static void register(CommandDispatcher<ServerCommandSource> dispatcher) {
         dispatcher.register(CommandManager.literal("tock")
@@ -23,36 +61,234 @@ public class TockCommands {
                     source.sendMessage(Text.literal(String.format("Last Tick Time: %dms", mod.getNeuroTickController().getLastTickTime())));
                     source.sendMessage(Text.literal(String.format("Average Tick Time: %.2fms", mod.getNeuroTickController().getAverageTickTime())));
                     source.sendMessage(Text.literal(String.format("Over Budget: %b", mod.getNeuroTickController().isOverBudget())));
+                    source.sendMessage(Text.literal(String.format("Throttle Level: %.2f", mod.getNeuroTickController().getThrottleLevel())));
+                    source.sendMessage(Text.literal("Server MSPT: " + NeuroTickController.describe(mod.getNeuroTickController().getServerTickTimes())));
+                    mod.getNeuroTickController().getWorldTickTimes().forEach((world, times) ->
+                        source.sendMessage(Text.literal("  " + world.getValue() + ": " + NeuroTickController.describe(times))));
                     
+                    // Add per-category cost profile
+                    CostProfile profile = mod.getNeuroTickController().getCostProfiler().getServerProfile();
+                    source.sendMessage(Text.literal("\n=== Tick Cost by Category ==="));
+                    for (TickCategory category : TickCategory.values()) {
+                        source.sendMessage(Text.literal(category.getDisplayName() + ": " + NeuroTickController.describe(profile, category)));
+                    }
+                    mod.getNeuroTickController().getCostProfiler().getWorldProfiles().forEach((world, worldProfile) ->
+                        source.sendMessage(Text.literal(String.format("  %s: most expensive is %s (%.3fms)",
+                            world.getValue(),
+                            worldProfile.getMostExpensive().getDisplayName(),
+                            worldProfile.getMean(worldProfile.getMostExpensive())))));
+
+                    // Add entity types by sampled tick cost
+                    source.sendMessage(Text.literal("\n=== Entity Tick Cost ==="));
+                    for (EntityCostTracker.TypeCost cost : mod.getEntityCostTracker().getCostliestTypes(ENTITY_COST_TYPES)) {
+                        source.sendMessage(Text.literal(String.format("%s: %.3fms/tick (%.1fus per entity tick)",
+                            EntityType.getId(cost.type()), cost.msPerTick(), cost.microsPerEntityTick())));
+                    }
+
                     // Add configuration status
                     source.sendMessage(Text.literal("\n=== Configuration Status ==="));
                     source.sendMessage(Text.literal(String.format("NeuroTick Enabled: %b", ModConfig.getInstance().neurotickEnabled)));
                     source.sendMessage(Text.literal(String.format("ChunkFuse Enabled: %b", ModConfig.getInstance().chunkfuseEnabled)));
                     source.sendMessage(Text.literal(String.format("SnailSpawn Enabled: %b", ModConfig.getInstance().snailspawnEnabled)));
+                    source.sendMessage(Text.literal(String.format("Entity LOD Enabled: %b", ModConfig.getInstance().entityLodEnabled)));
                     source.sendMessage(Text.literal(String.format("Smart Scheduler Enabled: %b", ModConfig.getInstance().schedulerEnabled)));
+                    source.sendMessage(Text.literal(String.format("BlockCache Enabled: %b", ModConfig.getInstance().blockCacheEnabled)));
                     
                     // Add performance metrics
                     source.sendMessage(Text.literal("\n=== Performance Metrics ==="));
                     source.sendMessage(Text.literal(String.format("Max Tick Time: %dms", ModConfig.getInstance().maxTickTime)));
                     source.sendMessage(Text.literal(String.format("Chunk Cold Timeout: %ds", ModConfig.getInstance().chunkColdTimeout)));
-                    source.sendMessage(Text.literal(String.format("Max Spawns Per Tick: %d", ModConfig.getInstance().maxSpawnsPerTick)));
+                    source.sendMessage(Text.literal(String.format("Max Spawns Per Tick: %d (effective: %d)", ModConfig.getInstance().maxSpawnsPerTick, mod.getSnailSpawnManager().getEffectiveSpawnCap())));
+                    source.sendMessage(Text.literal(String.format("Deferred Spawns: %d queued, %d dropped", mod.getSnailSpawnManager().getQueuedSpawns(), mod.getSnailSpawnManager().getDroppedSpawns())));
+                    for (String line : mod.getSnailSpawnManager().describeSpawnData()) {
+                        source.sendMessage(Text.literal("  " + line));
+                    }
+
+                    // Add scheduler drain statistics
+                    source.sendMessage(Text.literal("\n=== Scheduler ==="));
+                    source.sendMessage(Text.literal(String.format("Last Drain: %d tasks in %.2fms", mod.getSmartScheduler().getLastProcessedTasks(), mod.getSmartScheduler().getLastDrainTime())));
+                    source.sendMessage(Text.literal(String.format("Deferred: %d tasks (oldest waiting %d ticks)", mod.getSmartScheduler().getLastDeferredTasks(), mod.getSmartScheduler().getLastOldestDeferralTicks())));
+                    source.sendMessage(Text.literal(String.format("Total Deferred: %d", mod.getSmartScheduler().getTotalDeferredTasks())));
+
+                    // Add registry metrics
+                    source.sendMessage(Text.literal("\n=== Metrics ==="));
+                    for (String line : MetricsRegistry.describe()) {
+                        source.sendMessage(Text.literal(line));
+                    }
                     
                     return 1;
                 }))
             .then(CommandManager.literal("profile")
                 .executes(context -> {
                     ServerCommandSource source = context.getSource();
+                    SamplingProfiler profiler = TockMod.getInstance().getSamplingProfiler();
                     source.sendMessage(Text.literal("=== Tock Profiling Information ==="));
-                    source.sendMessage(Text.literal("Profiling not implemented yet"));
+                    source.sendMessage(Text.literal(String.format("Running: %b", profiler.isRunning())));
+                    source.sendMessage(Text.literal(String.format("Samples: %d over %.1fs", profiler.getSampleCount(), profiler.getElapsedSeconds())));
                     return 1;
-                }))
+                })
+                .then(CommandManager.literal("start")
+                    .executes(context -> {
+                        ServerCommandSource source = context.getSource();
+                        ModConfig config = ModConfig.getInstance();
+                        if (!TockMod.getInstance().getSamplingProfiler().start(source.getServer().getThread(),
+                                config.profilerSampleRate, config.profilerMaxSeconds)) {
+                            source.sendError(Text.literal("A profile is already running"));
+                            return 0;
+                        }
+                        source.sendMessage(Text.literal(String.format("Sampling the server thread at %d Hz for up to %ds",
+                            config.profilerSampleRate, config.profilerMaxSeconds)));
+                        return 1;
+                    }))
+                .then(CommandManager.literal("stop")
+                    .executes(context -> {
+                        if (!TockMod.getInstance().getSamplingProfiler().stop()) {
+                            context.getSource().sendError(Text.literal("No profile is running"));
+                            return 0;
+                        }
+                        dumpProfile(context.getSource());
+                        return 1;
+                    }))
+                .then(CommandManager.literal("dump")
+                    .executes(context -> {
+                        dumpProfile(context.getSource());
+                        return 1;
+                    })))
             .then(CommandManager.literal("heatmap")
-                .executes(context -> {
-                    ServerCommandSource source = context.getSource();
-                    source.sendMessage(Text.literal("=== Tock Chunk Heatmap ==="));
-                    source.sendMessage(Text.literal("Heatmap not implemented yet"));
-                    return 1;
-                }))
+                .executes(context -> showHeatmap(context.getSource()))
+                .then(CommandManager.literal("export")
+                    .executes(context -> exportHeatmap(context.getSource(), DEFAULT_HEATMAP_RADIUS))
+                    .then(CommandManager.argument("radius", IntegerArgumentType.integer(1, MAX_HEATMAP_RADIUS))
+                        .executes(context -> exportHeatmap(context.getSource(), IntegerArgumentType.getInteger(context, "radius"))))))
+            .then(CommandManager.literal("find")
+                .then(CommandManager.argument("block", IdentifierArgumentType.identifier())
+                    .suggests((context, builder) -> CommandSource.suggestIdentifiers(Registries.BLOCK.getIds(), builder))
+                    .executes(context -> findBlocks(context, DEFAULT_QUERY_RADIUS))
+                    .then(CommandManager.argument("radius", IntegerArgumentType.integer(0, MAX_QUERY_RADIUS))
+                        .executes(context -> findBlocks(context, IntegerArgumentType.getInteger(context, "radius"))))))
+            .then(CommandManager.literal("count")
+                .then(CommandManager.argument("block", IdentifierArgumentType.identifier())
+                    .suggests((context, builder) -> CommandSource.suggestIdentifiers(Registries.BLOCK.getIds(), builder))
+                    .executes(context -> countBlocks(context, DEFAULT_QUERY_RADIUS))
+                    .then(CommandManager.argument("radius", IntegerArgumentType.integer(0, MAX_QUERY_RADIUS))
+                        .executes(context -> countBlocks(context, IntegerArgumentType.getInteger(context, "radius"))))))
         );
     }
+
+    // Costliest chunks of the current world, each line a link that teleports there
+    private static int showHeatmap(ServerCommandSource source) {
+        ServerWorld world = source.getWorld();
+        long[] chunks = new long[HEATMAP_CHUNKS];
+        double[] costs = new double[HEATMAP_CHUNKS];
+        int count = TockMod.getInstance().getChunkFuseManager().getCostliestChunks(world, chunks, costs);
+
+        source.sendMessage(Text.literal("=== Tock Chunk Heatmap ==="));
+        if (count == 0) {
+            source.sendMessage(Text.literal("No chunk tick costs measured yet"));
+            return 0;
+        }
+        for (int i = 0; i < count; i++) {
+            int chunkX = ChunkPos.getPackedX(chunks[i]);
+            int chunkZ = ChunkPos.getPackedZ(chunks[i]);
+            int x = (chunkX << 4) + 8;
+            int z = (chunkZ << 4) + 8;
+            int y = world.isChunkLoaded(chunkX, chunkZ)
+                ? world.getTopY(Heightmap.Type.MOTION_BLOCKING, x, z)
+                : (int) source.getPosition().y;
+            String teleport = String.format("/execute in %s run tp @s %d %d %d", world.getRegistryKey().getValue(), x, y, z);
+            source.sendMessage(Text.literal(String.format("%d. chunk [%d, %d]: %.3fms/tick", i + 1, chunkX, chunkZ, costs[i]))
+                .styled(style -> style
+                    .withColor(Formatting.AQUA)
+                    .withClickEvent(new ClickEvent.RunCommand(teleport))
+                    .withHoverEvent(new HoverEvent.ShowText(Text.literal("Teleport to " + x + " " + y + " " + z)))));
+        }
+        return count;
+    }
+
+    // Square of chunks around the source, radius chunks each way, rendered off the server thread
+    private static int exportHeatmap(ServerCommandSource source, int radius) {
+        ServerWorld world = source.getWorld();
+        ChunkPos center = new ChunkPos(BlockPos.ofFloored(source.getPosition()));
+        int size = radius * 2 + 1;
+        double[] costs = new double[size * size];
+        for (int z = 0; z < size; z++) {
+            for (int x = 0; x < size; x++) {
+                costs[z * size + x] = TockMod.getInstance().getChunkFuseManager()
+                    .getChunkCost(world, ChunkPos.toLong(center.x - radius + x, center.z - radius + z));
+            }
+        }
+
+        MinecraftServer server = source.getServer();
+        Path file = server.getRunDirectory().resolve("tock").resolve(String.format("heatmap-%s-%d-%d-%s.png",
+            world.getRegistryKey().getValue().getPath(), center.x, center.z, LocalDateTime.now().format(FILE_TIME)));
+        CompletableFuture.runAsync(() -> {
+            try {
+                ChunkHeatmapImage.write(costs, size, file);
+                server.execute(() -> source.sendMessage(Text.literal("Wrote heatmap to " + file)));
+            } catch (IOException e) {
+                LOGGER.error("Failed to write heatmap to {}", file, e);
+                server.execute(() -> source.sendError(Text.literal("Failed to write heatmap: " + e.getMessage())));
+            }
+        });
+        return 1;
+    }
+
+    // The file is written off the server thread; the result is reported back on it
+    private static void dumpProfile(ServerCommandSource source) {
+        MinecraftServer server = source.getServer();
+        Path directory = server.getRunDirectory().resolve("tock");
+        CompletableFuture.runAsync(() -> {
+            try {
+                Path file = TockMod.getInstance().getSamplingProfiler().dump(directory);
+                server.execute(() -> source.sendMessage(Text.literal("Wrote collapsed stacks to " + file)));
+            } catch (IOException e) {
+                LOGGER.error("Failed to write profile to {}", directory, e);
+                server.execute(() -> source.sendError(Text.literal("Failed to write profile: " + e.getMessage())));
+            }
+        });
+    }
+
+    // Both queries read the block cache, so only chunks captured so far are searched
+    private static int findBlocks(CommandContext<ServerCommandSource> context, int radius) {
+        ServerCommandSource source = context.getSource();
+        Block block = getBlock(context);
+        if (block == null) {
+            return 0;
+        }
+
+        BlockPos center = BlockPos.ofFloored(source.getPosition());
+        List<BlockPos> found = TockMod.getInstance().getBlockCache()
+            .findBlocks(source.getWorld().getRegistryKey(), center, radius, block, LISTED_POSITIONS);
+        source.sendMessage(Text.literal(String.format("=== %s within %d blocks ===", Registries.BLOCK.getId(block), radius)));
+        if (found.isEmpty()) {
+            source.sendMessage(Text.literal("None found in cached chunks"));
+        }
+        for (BlockPos pos : found) {
+            source.sendMessage(Text.literal(String.format("  %d, %d, %d (%.0f blocks away)",
+                pos.getX(), pos.getY(), pos.getZ(), Math.sqrt(pos.getSquaredDistance(center)))));
+        }
+        return found.size();
+    }
+
+    private static int countBlocks(CommandContext<ServerCommandSource> context, int radius) {
+        ServerCommandSource source = context.getSource();
+        Block block = getBlock(context);
+        if (block == null) {
+            return 0;
+        }
+
+        long count = TockMod.getInstance().getBlockCache().countBlocks(source.getWorld().getRegistryKey(),
+            BlockPos.ofFloored(source.getPosition()), radius, block);
+        source.sendMessage(Text.literal(String.format("%s within %d blocks: %d", Registries.BLOCK.getId(block), radius, count)));
+        return (int) Math.min(count, Integer.MAX_VALUE);
+    }
+
+    private static Block getBlock(CommandContext<ServerCommandSource> context) {
+        Identifier id = IdentifierArgumentType.getIdentifier(context, "block");
+        if (!Registries.BLOCK.containsId(id)) {
+            context.getSource().sendError(Text.literal("Unknown block: " + id));
+            return null;
+        }
+        return Registries.BLOCK.get(id);
+    }
 } 
\ No newline at end of file
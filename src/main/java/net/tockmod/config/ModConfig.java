@@ -7,6 +7,9 @@ import me.shedaniel.autoconfig.serializer.GsonConfigSerializer;
 import me.shedaniel.cloth.clothconfig.shadowed.blue.endless.jankson.Comment;
 import net.tockmod.TockMod;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Config(name = TockMod.MOD_ID)
 public class ModConfig implements ConfigData {
     @ConfigEntry.Category("neurotick")
@@ -17,6 +20,30 @@ public class ModConfig implements ConfigData {
     @Comment("Maximum milliseconds per tick (default: 40ms for 20 TPS)")
     public int maxTickTime = 40;
 
+    @ConfigEntry.Category("neurotick")
+    @Comment("Proportional gain of the throttle controller (throttle per ms over budget)")
+    public double pidKp = 0.02;
+
+    @ConfigEntry.Category("neurotick")
+    @Comment("Integral gain of the throttle controller (throttle per ms over budget per tick)")
+    public double pidKi = 0.002;
+
+    @ConfigEntry.Category("neurotick")
+    @Comment("Derivative gain of the throttle controller (throttle per ms/tick of MSPT change)")
+    public double pidKd = 0.01;
+
+    @ConfigEntry.Category("neurotick")
+    @Comment("Minimum throttle change before subsystems are notified, to prevent flapping")
+    public double throttleHysteresis = 0.05;
+
+    @ConfigEntry.Category("neurotick")
+    @Comment("Sample per-category tick costs every N ticks (0 disables cost profiling)")
+    public int costSampleInterval = 1;
+
+    @ConfigEntry.Category("neurotick")
+    @Comment("Time one in N entity ticks, picked by entity id and tick, to rank entity types by cost (rounded up to a power of two, 0 disables)")
+    public int entityCostSampleInterval = 64;
+
     @ConfigEntry.Category("chunkfuse")
     @Comment("Enable the ChunkFuse system for chunk activity tracking")
     public boolean chunkfuseEnabled = true;
@@ -25,6 +52,42 @@ public class ModConfig implements ConfigData {
     @Comment("Seconds of inactivity before a chunk is considered 'cold'")
     public int chunkColdTimeout = 30;
 
+    @ConfigEntry.Category("chunkfuse")
+    @Comment("Suspend block entities and random ticks in cold chunks, catching up when they heat up again")
+    public boolean suspendColdChunks = false;
+
+    @ConfigEntry.Category("chunkfuse")
+    @Comment("Extra random ticks per chunk section per tick used to pay off the random ticks a suspended chunk missed")
+    public int maxCatchUpRandomTicks = 64;
+
+    @ConfigEntry.Category("chunkfuse")
+    @Comment("Maximum furnace events (items smelted, fuel consumed) replayed when catching up a suspended chunk")
+    public int maxCatchUpEvents = 64;
+
+    @ConfigEntry.Category("chunkfuse")
+    @Comment("Time one in N entity, block entity and scheduled block ticks, picked by id or position and tick, to find the costliest chunks (rounded up to a power of two, 0 disables)")
+    public int heatSampleInterval = 16;
+
+    @ConfigEntry.Category("chunkfuse")
+    @Comment("Seconds for a chunk's measured tick cost to decay to half once it stops costing anything")
+    public int heatHalfLifeSeconds = 30;
+
+    @ConfigEntry.Category("entitylod")
+    @Comment("Tick mobs far from players less often, spread evenly over the interval")
+    public boolean entityLodEnabled = true;
+
+    @ConfigEntry.Category("entitylod")
+    @Comment("Blocks from the nearest player beyond which mobs tick every 2nd tick")
+    public int lodBand2Distance = 48;
+
+    @ConfigEntry.Category("entitylod")
+    @Comment("Blocks from the nearest player beyond which mobs tick every 4th tick")
+    public int lodBand4Distance = 80;
+
+    @ConfigEntry.Category("entitylod")
+    @Comment("Blocks from the nearest player beyond which mobs tick every 8th tick")
+    public int lodBand8Distance = 112;
+
     @ConfigEntry.Category("snailspawn")
     @Comment("Enable the SnailSpawn system for controlled entity spawning")
     public boolean snailspawnEnabled = true;
@@ -33,6 +96,34 @@ public class ModConfig implements ConfigData {
     @Comment("Maximum entities that can spawn per tick")
     public int maxSpawnsPerTick = 10;
 
+    @ConfigEntry.Category("snailspawn")
+    @Comment("Spawns of one entity type a chunk can burst before it has to wait for tokens")
+    public int spawnBucketCapacity = 4;
+
+    @ConfigEntry.Category("snailspawn")
+    @Comment("Ticks for a chunk to earn back one spawn token of an entity type")
+    public int spawnBucketRefillTicks = 200;
+
+    @ConfigEntry.Category("snailspawn")
+    @Comment("Denied spawner spawns kept per entity type to replay on later ticks")
+    public int maxQueuedSpawnsPerType = 32;
+
+    @ConfigEntry.Category("snailspawn")
+    @Comment("Ticks a deferred spawn may wait before it is dropped")
+    public int maxSpawnDelayTicks = 100;
+
+    @ConfigEntry.Category("snailspawn")
+    @Comment("Natural spawn density allowed per 4x4 chunk region, as a multiple of the vanilla mob cap spread per chunk")
+    public double regionDensityMultiplier = 2.0;
+
+    @ConfigEntry.Category("snailspawn")
+    @Comment("Ticks a chunk's spawn data may sit idle before it is folded into its region record")
+    public int spawnDataIdleTicks = 6000;
+
+    @ConfigEntry.Category("snailspawn")
+    @Comment("Maximum chunks with spawn data kept per world; the least recently used go first")
+    public int maxSpawnDataChunks = 4096;
+
     @ConfigEntry.Category("scheduler")
     @Comment("Enable the Smart Scheduler system")
     public boolean schedulerEnabled = true;
@@ -41,6 +132,46 @@ public class ModConfig implements ConfigData {
     @Comment("Enable preemptive cancellation of redundant updates")
     public boolean enablePreemptiveCancellation = true;
 
+    @ConfigEntry.Category("scheduler")
+    @Comment("Vanilla block and fluid ticks the scheduler may hold back and defer under load, as block or fluid ids or #block tags; all other ticks keep vanilla's exact timing")
+    public List<String> deferrableTicks = new ArrayList<>(List.of("#minecraft:leaves"));
+
+    @ConfigEntry.Category("scheduler")
+    @Comment("Minimum scheduled tasks each world runs per tick even when the tick budget is exhausted")
+    public int minTasksPerTick = 64;
+
+    @ConfigEntry.Category("scheduler")
+    @Comment("Ticks a due task may be deferred before it runs regardless of the tick budget")
+    public int maxTaskDeferralTicks = 20;
+
+    @ConfigEntry.Category("blockcache")
+    @Comment("Enable the BlockCache system of read-only block state snapshots")
+    public boolean blockCacheEnabled = true;
+
+    @ConfigEntry.Category("blockcache")
+    @Comment("Maximum dirty chunk sections copied into the cache at the end of a tick")
+    public int blockCacheSectionsPerTick = 2048;
+
+    @ConfigEntry.Category("blockcache")
+    @Comment("Maximum chunks kept in the cache per world; the least recently captured go first")
+    public int blockCacheMaxChunks = 4096;
+
+    @ConfigEntry.Category("blockcache")
+    @Comment("Keep snapshots of chunks after they unload, up to blockCacheMaxChunks; otherwise they are dropped with the chunk")
+    public boolean blockCacheKeepUnloaded = false;
+
+    @ConfigEntry.Category("metrics")
+    @Comment("Seconds between metrics summaries, logged at debug level off the server thread (0 disables)")
+    public int metricsLogInterval = 60;
+
+    @ConfigEntry.Category("profiler")
+    @Comment("Stack samples per second taken of the server thread while /tock profile is running")
+    public int profilerSampleRate = 100;
+
+    @ConfigEntry.Category("profiler")
+    @Comment("Seconds after which a running profile stops sampling on its own")
+    public int profilerMaxSeconds = 300;
+
     private static ModConfig INSTANCE;
 
     public static void load() {
@@ -0,0 +1,90 @@
+package net.tockmod.entity;
+
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.world.World;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Bounded per-type queues of spawns that were denied when they happened. Each entry keeps the
+// entity's saved NBT and where it was going, not the entity or its world, so nothing live is held
+// across ticks or unloads and the entity is rebuilt when it is replayed. A full queue drops its
+// oldest entry, and entries that waited too long are dropped when they reach the head, so a busy
+// farm keeps its most recent spawns instead of an ever-growing backlog.
+class DeferredSpawnQueue {
+    private final Map<Integer, ArrayDeque<DeferredSpawn>> queues = new LinkedHashMap<>();
+    private int size = 0;
+    private long droppedSpawns = 0;
+
+    public int size() {
+        return size;
+    }
+
+    public long getDroppedSpawns() {
+        return droppedSpawns;
+    }
+
+    public void offer(DeferredSpawn spawn, int maxPerType) {
+        ArrayDeque<DeferredSpawn> queue = queues.computeIfAbsent(spawn.typeId(), type -> new ArrayDeque<>());
+        if (queue.size() >= maxPerType) {
+            queue.pollFirst();
+            size--;
+            droppedSpawns++;
+        }
+        queue.addLast(spawn);
+        size++;
+    }
+
+    // Round-robins over the types until the deadline passes or no type can make progress.
+    // The gate returns true once it has dealt with an entry, or false to leave it for a later tick.
+    public int drain(long tick, int maxAgeTicks, long deadline, SpawnGate gate) {
+        int handled = 0;
+        boolean progress = true;
+        while (progress && size > 0) {
+            progress = false;
+            Iterator<ArrayDeque<DeferredSpawn>> it = queues.values().iterator();
+            while (it.hasNext()) {
+                ArrayDeque<DeferredSpawn> queue = it.next();
+                DeferredSpawn spawn;
+                while ((spawn = queue.peekFirst()) != null && tick - spawn.queuedTick() > maxAgeTicks) {
+                    queue.pollFirst();
+                    size--;
+                    droppedSpawns++;
+                }
+                if (spawn == null) {
+                    it.remove();
+                    continue;
+                }
+
+                if (System.nanoTime() >= deadline) {
+                    return handled;
+                }
+                if (gate.trySpawn(spawn)) {
+                    queue.pollFirst();
+                    size--;
+                    handled++;
+                    progress = true;
+                }
+            }
+        }
+        return handled;
+    }
+
+    public void clear() {
+        queues.clear();
+        size = 0;
+    }
+
+    interface SpawnGate {
+        boolean trySpawn(DeferredSpawn spawn);
+    }
+
+    // despawnRange is the distance from players past which the mob would despawn on its first
+    // tick, or -1 if it never would
+    record DeferredSpawn(RegistryKey<World> world, int typeId, NbtCompound nbt, double x, double y, double z,
+                         int despawnRange, long queuedTick) {
+    }
+}
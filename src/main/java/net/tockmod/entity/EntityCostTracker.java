@@ -0,0 +1,97 @@
+package net.tockmod.entity;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.EntityType;
+import net.minecraft.registry.Registries;
+import net.minecraft.server.MinecraftServer;
+import net.tockmod.config.ModConfig;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+// Tick cost per entity type from a deterministic sample of entity ticks: one in N, picked by
+// hashing entity id and server tick so the sample doesn't line up with LOD phases. Sampled
+// time and sample counts accumulate in arrays indexed by the type's raw id and decay with a
+// fixed half-life, so the ranking follows what is expensive now. Owned by the server thread.
+public class EntityCostTracker {
+    private static final int DECAY_INTERVAL_TICKS = 20;
+    private static final double HALF_LIFE_TICKS = 30 * 20;
+    private static final double DECAY = Math.pow(0.5, DECAY_INTERVAL_TICKS / HALF_LIFE_TICKS);
+
+    private double[] sampledNanos = new double[0];
+    private double[] samples = new double[0];
+    private int sampleInterval = 0;
+    private int sampleMask = -1;
+    private long currentTick = 0;
+
+    public void onServerTickStart(MinecraftServer server) {
+        int interval = ModConfig.getInstance().entityCostSampleInterval;
+        sampleInterval = interval > 0 ? HashCommon.nextPowerOfTwo(interval) : 0;
+        sampleMask = sampleInterval - 1;
+        currentTick = server.getTicks();
+
+        if (currentTick % DECAY_INTERVAL_TICKS == 0) {
+            for (int i = 0; i < samples.length; i++) {
+                sampledNanos[i] *= DECAY;
+                samples[i] *= DECAY;
+            }
+        }
+    }
+
+    // Nonzero start time if this entity's tick is sampled; pass it to endSample afterwards
+    public long startSample(Entity entity) {
+        if (sampleInterval == 0
+            || (HashCommon.murmurHash3(((long) entity.getId() << 32) ^ currentTick) & sampleMask) != 0) {
+            return 0;
+        }
+        return System.nanoTime();
+    }
+
+    public void endSample(Entity entity, long startNanos) {
+        if (startNanos == 0) {
+            return;
+        }
+
+        long elapsed = System.nanoTime() - startNanos;
+        int type = ((IndexedEntityType) entity.getType()).tock$getRawId();
+        if (type >= samples.length) {
+            grow(type + 1);
+        }
+        sampledNanos[type] += elapsed;
+        samples[type]++;
+    }
+
+    // Costliest entity types, costliest first
+    public List<TypeCost> getCostliestTypes(int limit) {
+        List<TypeCost> costs = new ArrayList<>();
+        for (int i = 0; i < samples.length; i++) {
+            if (samples[i] <= 0) {
+                continue;
+            }
+            // Decay takes away what each interval adds once the sums settle
+            double msPerTick = sampledNanos[i] * sampleInterval * (1 - DECAY) / DECAY_INTERVAL_TICKS / 1_000_000.0;
+            double microsPerEntityTick = sampledNanos[i] / samples[i] / 1000.0;
+            costs.add(new TypeCost(Registries.ENTITY_TYPE.get(i), msPerTick, microsPerEntityTick));
+        }
+        costs.sort(Comparator.comparingDouble(TypeCost::msPerTick).reversed());
+        return costs.size() > limit ? costs.subList(0, limit) : costs;
+    }
+
+    public void clear() {
+        sampledNanos = new double[0];
+        samples = new double[0];
+    }
+
+    private void grow(int size) {
+        // Sized once for the whole registry, types never come and go after startup
+        int length = Math.max(size, Registries.ENTITY_TYPE.size());
+        sampledNanos = Arrays.copyOf(sampledNanos, length);
+        samples = Arrays.copyOf(samples, length);
+    }
+
+    public record TypeCost(EntityType<?> type, double msPerTick, double microsPerEntityTick) {
+    }
+}
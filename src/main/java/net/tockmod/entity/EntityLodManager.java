@@ -0,0 +1,99 @@
+package net.tockmod.entity;
+
+import net.minecraft.entity.mob.MobEntity;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.world.ServerWorld;
+import net.tockmod.config.ModConfig;
+import net.tockmod.metrics.Counter;
+import net.tockmod.metrics.MetricsRegistry;
+import net.tockmod.tick.ThrottleListener;
+import net.tockmod.world.PlayerSpatialIndex;
+
+// Distance-based level of detail for mob ticking. Mobs beyond each distance band from the
+// nearest player tick only every 2, 4 or 8 ticks, phased by entity id so a band's mobs are
+// spread evenly over the interval instead of all ticking on the same tick. Only AI and
+// movement are throttled; the rest of the mob's tick (fire, air, portals, age) runs every tick.
+public class EntityLodManager implements ThrottleListener {
+    private static final Counter LOD_SKIPPED = MetricsRegistry.counter("entitylod.mob_ticks_skipped");
+    private static final int[] BAND_INTERVALS = {2, 4, 8};
+    private static final double MAX_BAND_REDUCTION = 0.5; // Share of each band distance dropped at full throttle
+    private final PlayerSpatialIndex playerIndex;
+    private volatile double throttleLevel = 0;
+
+    // Refreshed once per server tick so the per-mob path never reads the config
+    private boolean enabled = false;
+    private long currentTick = 0;
+    private final double[] bandDistancesSq = new double[BAND_INTERVALS.length];
+    private double outerBandDistance = 0;
+
+    public EntityLodManager(PlayerSpatialIndex playerIndex) {
+        this.playerIndex = playerIndex;
+    }
+
+    public void onServerTickStart(MinecraftServer server) {
+        ModConfig config = ModConfig.getInstance();
+        enabled = config.entityLodEnabled;
+        if (!enabled) {
+            return;
+        }
+
+        currentTick = server.getTicks();
+
+        // Bands pull in towards players while the server is over budget
+        double scale = 1 - MAX_BAND_REDUCTION * throttleLevel;
+        int[] distances = {config.lodBand2Distance, config.lodBand4Distance, config.lodBand8Distance};
+        for (int i = 0; i < distances.length; i++) {
+            double distance = distances[i] * scale;
+            bandDistancesSq[i] = distance * distance;
+        }
+        outerBandDistance = config.lodBand8Distance * scale;
+    }
+
+    public void onServerTickEnd(MinecraftServer server) {
+        // No-op for now
+    }
+
+    @Override
+    public void onThrottleChanged(double level) {
+        throttleLevel = level;
+    }
+
+    // Ticks between two updates of this mob: 1 while near a player, else 2, 4 or 8
+    public int getTickInterval(ServerWorld world, MobEntity mob) {
+        if (!enabled || mob.hasVehicle() || mob.hasPassengers() || mob.hurtTime > 0) {
+            return 1;
+        }
+
+        // Past the outer band the exact distance doesn't matter, so the search stops there
+        double distanceSq = playerIndex.nearestDistanceSq(world, mob.getX(), mob.getY(), mob.getZ(), outerBandDistance);
+        int interval = 1;
+        for (int i = 0; i < BAND_INTERVALS.length; i++) {
+            if (distanceSq >= bandDistancesSq[i]) {
+                interval = BAND_INTERVALS[i];
+            }
+        }
+        return interval;
+    }
+
+    // The interval on the mob's phase tick, 0 on the ticks in between when its AI and movement are skipped
+    public int getTickScale(ServerWorld world, MobEntity mob) {
+        int scale = tickScale(mob.getId(), currentTick, getTickInterval(world, mob));
+        if (scale == 0) {
+            LOD_SKIPPED.increment();
+        }
+        return scale;
+    }
+
+    public boolean shouldTick(MobEntity mob, int interval) {
+        return isPhaseTick(mob.getId(), currentTick, interval);
+    }
+
+    static int tickScale(int entityId, long tick, int interval) {
+        return isPhaseTick(entityId, tick, interval) ? interval : 0;
+    }
+
+    // Intervals are powers of two, so the phase is just the low bits of id + tick
+    static boolean isPhaseTick(int entityId, long tick, int interval) {
+        return ((entityId + tick) & (interval - 1)) == 0;
+    }
+}
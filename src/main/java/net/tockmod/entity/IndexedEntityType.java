@@ -0,0 +1,6 @@
+package net.tockmod.entity;
+
+// Implemented on EntityType by mixin; the type's raw registry id, looked up once
+public interface IndexedEntityType {
+    int tock$getRawId();
+}
@@ -0,0 +1,9 @@
+package net.tockmod.entity;
+
+// Implemented on MobEntity by mixin; the interval the mob's AI and movement currently run at, or 0
+// while they are skipped for this tick
+public interface LodTickedEntity {
+    int tock$getTickScale();
+
+    void tock$setTickScale(int scale);
+}
@@ -1,156 +1,254 @@
 package net.tockmod.entity;
 
+import net.minecraft.entity.Entity;
 import net.minecraft.entity.EntityType;
+import net.minecraft.entity.SpawnGroup;
+import net.minecraft.entity.SpawnReason;
+import net.minecraft.entity.mob.MobEntity;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.registry.Registries;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.MathHelper;
 import net.minecraft.server.world.ServerWorld;
 import net.tockmod.config.ModConfig;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import net.tockmod.jfr.SpawnDeniedEvent;
+import net.tockmod.metrics.Counter;
+import net.tockmod.metrics.Gauge;
+import net.tockmod.metrics.MetricsRegistry;
+import net.tockmod.tick.NeuroTickController;
+import net.tockmod.tick.ThrottleListener;
+import net.tockmod.tick.TickCategory;
+import net.tockmod.world.PerWorld;
+import net.tockmod.world.PlayerSpatialIndex;
+
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
-public class SnailSpawnManager {
-    private static final Logger LOGGER = LoggerFactory.getLogger("Tock/SnailSpawn");
-    private final Map<ChunkPos, SpawnData> spawnDataMap = new ConcurrentHashMap<>();
+public class SnailSpawnManager implements ThrottleListener {
+    private static final Counter ALLOWED = MetricsRegistry.counter("snailspawn.allowed");
+    private static final Counter DENIED_CAP = MetricsRegistry.counter("snailspawn.denied_tick_cap");
+    private static final Counter DENIED_TOKENS = MetricsRegistry.counter("snailspawn.denied_tokens");
+    private static final Counter REPLAYED = MetricsRegistry.counter("snailspawn.replayed");
+    private static final Counter ABANDONED = MetricsRegistry.counter("snailspawn.abandoned");
+    private static final Counter SATURATED = MetricsRegistry.counter("snailspawn.saturated_chunks");
+    private static final Gauge SPAWN_DATA_CHUNKS = MetricsRegistry.gauge("snailspawn.spawn_data_chunks");
+    private static final Gauge QUEUED = MetricsRegistry.gauge("snailspawn.queued");
+    private final SpawnDataStore spawnDataStore = new SpawnDataStore();
+    private static final int EVICTIONS_PER_TICK = 16; // Idle chunks evicted per world per tick
     private final AtomicInteger spawnsThisTick = new AtomicInteger(0);
+    private volatile double throttleLevel = 0;
+    private volatile long currentTick = 0;
+    private final NeuroTickController neuroTickController;
+    private final PlayerSpatialIndex playerIndex;
+    // Owned by the server thread like the spawners feeding it
+    private final DeferredSpawnQueue deferredSpawns = new DeferredSpawnQueue();
+    private static final int DENSITY_RECOUNT_INTERVAL = 20; // Region densities are at most a second old
+    private final PerWorld<SpawnDensityGrid> densityGrids = new PerWorld<>(world -> new SpawnDensityGrid(DENSITY_RECOUNT_INTERVAL));
+    // Chunks one player's mob caps are spread over: a 17x17 square around them
+    private static final double CHUNKS_PER_MOB_CAP = 17 * 17;
+
+    public SnailSpawnManager(NeuroTickController neuroTickController, PlayerSpatialIndex playerIndex) {
+        this.neuroTickController = neuroTickController;
+        this.playerIndex = playerIndex;
+    }
 
     public void onServerTickStart(MinecraftServer server) {
         if (!ModConfig.getInstance().snailspawnEnabled) {
             return;
         }
 
+        currentTick = server.getTicks();
+
         // Reset spawn counter for new tick
         spawnsThisTick.set(0);
-        LOGGER.debug("Reset spawn counter for new tick");
 
-        // Log spawn summary every 100 ticks
-        if (server.getTicks() % 100 == 0) {
-            logSpawnSummary();
+        // Regions are recounted when spawning next asks about them; ones it has moved away from are dropped
+        if (currentTick % DENSITY_RECOUNT_INTERVAL == 0) {
+            for (SpawnDensityGrid grid : densityGrids.values()) {
+                grid.prune(currentTick);
+            }
         }
+
+        ModConfig config = ModConfig.getInstance();
+        spawnDataStore.setBuckets(config.spawnBucketCapacity, 1.0f / Math.max(1, config.spawnBucketRefillTicks));
+
+        // Evict a few idle chunks every tick rather than sweeping the whole store at once
+        spawnDataStore.evictIdle(currentTick, getIdleTicks(), EVICTIONS_PER_TICK, ModConfig.getInstance().maxSpawnDataChunks);
+
+        // Replay deferred spawns with whatever the tick budget leaves over
+        if (deferredSpawns.size() > 0) {
+            neuroTickController.getCostProfiler().begin(TickCategory.SPAWNING);
+            long budget = (long) (neuroTickController.getRemainingBudgetNanos(TickCategory.SPAWNING) * (1 - throttleLevel));
+            REPLAYED.add(deferredSpawns.drain(currentTick, ModConfig.getInstance().maxSpawnDelayTicks,
+                System.nanoTime() + budget, spawn -> replaySpawn(server, spawn)));
+            neuroTickController.getCostProfiler().end(TickCategory.SPAWNING);
+        }
+        SPAWN_DATA_CHUNKS.set(spawnDataStore.size());
+        QUEUED.set(deferredSpawns.size());
     }
 
-    private void logSpawnSummary() {
-        LOGGER.info("=== Spawn Summary ===");
-        LOGGER.info("Total spawn data entries: {}", spawnDataMap.size());
-        
-        // Group spawns by world
-        Map<ServerWorld, Long> spawnsByWorld = spawnDataMap.entrySet().stream()
-            .collect(java.util.stream.Collectors.groupingBy(
-                entry -> entry.getValue().world,
-                java.util.stream.Collectors.counting()));
-        
-        spawnsByWorld.forEach((world, count) -> 
-            LOGGER.info("  {}: {} spawn points", world.getRegistryKey().getValue(), count));
-        
-        // Count active vs inactive spawn points
-        long activeSpawns = spawnDataMap.values().stream()
-            .filter(data -> data.isActive())
-            .count();
-        
-        LOGGER.info("Active spawn points: {}", activeSpawns);
-        LOGGER.info("Inactive spawn points: {}", spawnDataMap.size() - activeSpawns);
+    // Chunks idle for this long are evicted; never before their token buckets would be full
+    // again, so eviction can't hand out spawns early
+    private long getIdleTicks() {
+        ModConfig config = ModConfig.getInstance();
+        return Math.max(config.spawnDataIdleTicks, (long) config.spawnBucketCapacity * config.spawnBucketRefillTicks);
     }
 
     public void onServerTickEnd(MinecraftServer server) {
         // No-op for now
     }
 
-    public boolean canSpawnEntity(ChunkPos pos, EntityType<?> entityType) {
+    @Override
+    public void onThrottleChanged(double level) {
+        throttleLevel = level;
+    }
+
+    // The per-tick spawn cap shrinks with load but never below one spawn per tick
+    public int getEffectiveSpawnCap() {
+        return Math.max(1, (int) Math.round(ModConfig.getInstance().maxSpawnsPerTick * (1 - throttleLevel)));
+    }
+
+    public boolean canSpawnEntity(ServerWorld world, ChunkPos pos, EntityType<?> entityType) {
         if (!ModConfig.getInstance().snailspawnEnabled) {
             return true;
         }
 
         // Check global spawn limit
-        if (spawnsThisTick.get() >= ModConfig.getInstance().maxSpawnsPerTick) {
-            LOGGER.debug("Spawn limit reached for this tick ({} entities)", ModConfig.getInstance().maxSpawnsPerTick);
+        int spawnCap = getEffectiveSpawnCap();
+        if (spawnsThisTick.get() >= spawnCap) {
+            DENIED_CAP.increment();
+            reportDenied(SpawnDeniedEvent.TICK_CAP, entityType, pos);
             return false;
         }
 
-        // Get or create spawn data for this chunk
-        SpawnData data = spawnDataMap.computeIfAbsent(pos, k -> {
-            LOGGER.debug("Created new spawn data for chunk {}", pos);
-            return new SpawnData();
-        });
-
         // Check entity type specific limits
-        if (!data.canSpawnEntityType(entityType)) {
-            LOGGER.debug("Entity type limit reached for {} in chunk {}", entityType, pos);
+        SpawnData data = spawnDataFor(world, pos.toLong());
+        if (!tryConsumeToken(data, Registries.ENTITY_TYPE.getRawId(entityType))) {
+            DENIED_TOKENS.increment();
+            reportDenied(SpawnDeniedEvent.NO_TOKENS, entityType, pos);
+            data.recordSpawnAttempt(false);
             return false;
         }
 
         // Increment spawn counters
+        data.recordSpawnAttempt(true);
         spawnsThisTick.incrementAndGet();
-        data.recordSpawn(entityType);
-        LOGGER.debug("Spawned {} in chunk {} (total this tick: {})", 
-            entityType, 
-            pos, 
-            spawnsThisTick.get());
+        ALLOWED.increment();
         return true;
     }
 
-    public void recordSpawnAttempt(ServerWorld world, ChunkPos pos, boolean success) {
-        if (!ModConfig.getInstance().snailspawnEnabled) {
-            return;
+    private SpawnData spawnDataFor(ServerWorld world, long chunkPos) {
+        return spawnDataStore.getOrCreate(world, chunkPos, currentTick, ModConfig.getInstance().maxSpawnDataChunks);
+    }
+
+    private boolean tryConsumeToken(SpawnData data, int typeId) {
+        ModConfig config = ModConfig.getInstance();
+        return data.tryConsumeToken(typeId, currentTick, config.spawnBucketCapacity,
+            1.0f / Math.max(1, config.spawnBucketRefillTicks));
+    }
+
+    private static void reportDenied(String reason, EntityType<?> entityType, ChunkPos pos) {
+        SpawnDeniedEvent event = new SpawnDeniedEvent();
+        if (event.shouldCommit()) {
+            event.reason = reason;
+            event.entityType = EntityType.getId(entityType).toString();
+            event.chunkX = pos.x;
+            event.chunkZ = pos.z;
+            event.commit();
         }
+    }
 
-        SpawnData data = spawnDataMap.computeIfAbsent(pos, 
-            k -> new SpawnData(world));
-        
-        data.recordSpawnAttempt(success);
-        LOGGER.debug("Recorded {} spawn attempt at {} in {}", 
-            success ? "successful" : "failed",
-            pos,
-            world.getRegistryKey().getValue());
-    }
-
-    private static class SpawnData {
-        private final Map<EntityType<?>, Integer> entityTypeCounts = new ConcurrentHashMap<>();
-        private static final int MAX_ENTITIES_PER_TYPE = 10;
-        private final ServerWorld world;
-        private int totalAttempts;
-        private int successfulAttempts;
-        private long lastAttemptTime;
-
-        public SpawnData() {
-            this.world = null;
-            this.totalAttempts = 0;
-            this.successfulAttempts = 0;
-            this.lastAttemptTime = System.currentTimeMillis();
+    // True if the 4x4 chunk region around the chunk already holds its share of the group's
+    // mob cap; SpawnHelper then skips the chunk without searching for spawn positions
+    public boolean isRegionSaturated(ServerWorld world, int chunkX, int chunkZ, SpawnGroup group) {
+        if (!ModConfig.getInstance().snailspawnEnabled) {
+            return false;
         }
 
-        public SpawnData(ServerWorld world) {
-            this.world = world;
-            this.totalAttempts = 0;
-            this.successfulAttempts = 0;
-            this.lastAttemptTime = System.currentTimeMillis();
+        int regionChunks = 1 << (2 * SpawnDensityGrid.REGION_BITS);
+        double cap = group.getCapacity() * regionChunks / CHUNKS_PER_MOB_CAP
+            * ModConfig.getInstance().regionDensityMultiplier * (1 - throttleLevel);
+        if (densityGrids.get(world).getCount(world, chunkX, chunkZ, group, currentTick) >= Math.max(1, cap)) {
+            SATURATED.increment();
+            return true;
         }
+        return false;
+    }
 
-        public boolean canSpawnEntityType(EntityType<?> type) {
-            return entityTypeCounts.getOrDefault(type, 0) < MAX_ENTITIES_PER_TYPE;
+    public void recordNaturalSpawn(ServerWorld world, int chunkX, int chunkZ, SpawnGroup group) {
+        if (ModConfig.getInstance().snailspawnEnabled) {
+            densityGrids.get(world).add(chunkX, chunkZ, group, currentTick);
         }
+    }
 
-        public void recordSpawn(EntityType<?> type) {
-            entityTypeCounts.merge(type, 1, Integer::sum);
+    // Queues a spawn that was denied so it happens on a later tick instead of being lost. Only the
+    // entity's saved state is kept; the caller drops the entity itself.
+    public void deferSpawn(ServerWorld world, Entity entity) {
+        NbtCompound nbt = new NbtCompound();
+        if (!entity.saveSelfNbt(nbt)) {
+            return;
         }
+        int despawnRange = entity instanceof MobEntity mob && !mob.isPersistent() && !mob.cannotDespawn()
+            && mob.canImmediatelyDespawn(Double.MAX_VALUE) ? entity.getType().getSpawnGroup().getImmediateDespawnRange() : -1;
+        deferredSpawns.offer(new DeferredSpawnQueue.DeferredSpawn(world.getRegistryKey(),
+            Registries.ENTITY_TYPE.getRawId(entity.getType()), nbt, entity.getX(), entity.getY(), entity.getZ(),
+            despawnRange, currentTick), ModConfig.getInstance().maxQueuedSpawnsPerType);
+    }
 
-        public void recordSpawnAttempt(boolean success) {
-            this.totalAttempts++;
-            if (success) {
-                this.successfulAttempts++;
-            }
-            this.lastAttemptTime = System.currentTimeMillis();
+    private boolean replaySpawn(MinecraftServer server, DeferredSpawnQueue.DeferredSpawn spawn) {
+        ServerWorld world = server.getWorld(spawn.world());
+        int chunkX = MathHelper.floor(spawn.x()) >> 4;
+        int chunkZ = MathHelper.floor(spawn.z()) >> 4;
+        // The chunk unloaded while the spawn was waiting, there's nothing to spawn into
+        if (world == null || !world.isChunkLoaded(chunkX, chunkZ)) {
+            return true;
+        }
+        // Players moved off while it waited and the mob would despawn on its first tick. Like
+        // vanilla, mobs never despawn in a world without players.
+        if (spawn.despawnRange() >= 0 && playerIndex.getPlayerCount(world) > 0
+            && playerIndex.nearestDistanceSq(world, spawn.x(), spawn.y(), spawn.z(), spawn.despawnRange()) == Double.MAX_VALUE) {
+            ABANDONED.increment();
+            return true;
         }
 
-        public boolean isActive() {
-            return System.currentTimeMillis() - lastAttemptTime < 
-                ModConfig.getInstance().chunkColdTimeout * 1000;
+        // The denial was counted when the spawn was queued, so only the cap and a token are taken here
+        if (spawnsThisTick.get() >= getEffectiveSpawnCap()
+            || !tryConsumeToken(spawnDataFor(world, ChunkPos.toLong(chunkX, chunkZ)), spawn.typeId())) {
+            return false;
         }
+        spawnsThisTick.incrementAndGet();
 
-        public double getSuccessRate() {
-            return totalAttempts > 0 ? (double) successfulAttempts / totalAttempts : 0;
+        Entity entity = EntityType.loadEntityWithPassengers(spawn.nbt(), world, SpawnReason.SPAWNER, loaded -> loaded);
+        if (entity != null) {
+            world.spawnNewEntityAndPassengers(entity);
         }
+        return true;
+    }
+
+    public void onServerStopping(MinecraftServer server) {
+        deferredSpawns.clear();
+        densityGrids.clear();
+        spawnDataStore.clear();
+    }
+
+    // One line per world: chunks tracked and folded into regions, and how many attempts got through
+    public List<String> describeSpawnData() {
+        long activeSince = currentTick - getIdleTicks();
+        List<String> lines = new ArrayList<>();
+        spawnDataStore.forEachWorld((world, data) -> lines.add(String.format(
+            "%s: %d chunks (%d active), %d evicted into %d regions, %.1f%% of attempts allowed",
+            world.getRegistryKey().getValue(), data.getChunkCount(), data.countActiveSince(activeSince),
+            data.getEvictedChunkCount(), data.getRegionCount(), data.getSuccessRate() * 100)));
+        return lines;
+    }
+
+    public int getQueuedSpawns() {
+        return deferredSpawns.size();
+    }
+
+    public long getDroppedSpawns() {
+        return deferredSpawns.getDroppedSpawns();
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,87 @@
+package net.tockmod.entity;
+
+import java.util.Arrays;
+
+// Spawn pacing state of one chunk
+class SpawnData {
+    // One token bucket per entity type, indexed by raw registry id and grown on demand;
+    // every bucket refills at the same rate, so one refill tick covers them all
+    private float[] tokens = new float[0];
+    private long lastRefillTick = -1;
+    private int totalAttempts;
+    private int successfulAttempts;
+    private long lastActiveTick;
+    // Set when the chunk comes back after being evicted with drained buckets: until this tick,
+    // buckets start only as full as they would have refilled by now
+    private long drainedUntilTick = Long.MIN_VALUE;
+
+    SpawnData(long tick) {
+        this.lastActiveTick = tick;
+    }
+
+    public boolean tryConsumeToken(int typeId, long tick, float capacity, float refillPerTick) {
+        if (lastRefillTick >= 0 && tick > lastRefillTick) {
+            float refill = (tick - lastRefillTick) * refillPerTick;
+            for (int i = 0; i < tokens.length; i++) {
+                tokens[i] = Math.min(capacity, tokens[i] + refill);
+            }
+        }
+        lastRefillTick = Math.max(lastRefillTick, tick);
+
+        // Types seen for the first time start with a full bucket
+        if (typeId >= tokens.length) {
+            int oldLength = tokens.length;
+            float initial = tick >= drainedUntilTick ? capacity
+                : Math.max(0, capacity - (drainedUntilTick - tick) * refillPerTick);
+            tokens = Arrays.copyOf(tokens, typeId + 1);
+            Arrays.fill(tokens, oldLength, tokens.length, initial);
+        }
+
+        if (tokens[typeId] < 1) {
+            return false;
+        }
+        tokens[typeId] -= 1;
+        return true;
+    }
+
+    // Tick from which every bucket is full again, so forgetting the chunk hands out nothing early
+    public long getFullTick(float capacity, float refillPerTick) {
+        float deficit = 0;
+        for (float bucket : tokens) {
+            deficit = Math.max(deficit, capacity - bucket);
+        }
+        long fullTick = deficit > 0 ? lastRefillTick + (long) Math.ceil(deficit / refillPerTick) : Long.MIN_VALUE;
+        return Math.max(fullTick, drainedUntilTick);
+    }
+
+    public void restoreDrained(long fullTick) {
+        drainedUntilTick = Math.max(drainedUntilTick, fullTick);
+    }
+
+    public void recordSpawnAttempt(boolean success) {
+        this.totalAttempts++;
+        if (success) {
+            this.successfulAttempts++;
+        }
+    }
+
+    public void touch(long tick) {
+        this.lastActiveTick = tick;
+    }
+
+    public long getLastActiveTick() {
+        return lastActiveTick;
+    }
+
+    public int getTotalAttempts() {
+        return totalAttempts;
+    }
+
+    public int getSuccessfulAttempts() {
+        return successfulAttempts;
+    }
+
+    public double getSuccessRate() {
+        return totalAttempts > 0 ? (double) successfulAttempts / totalAttempts : 0;
+    }
+}
@@ -0,0 +1,166 @@
+package net.tockmod.entity;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.ChunkPos;
+import net.tockmod.metrics.Counter;
+import net.tockmod.metrics.MetricsRegistry;
+import net.tockmod.world.PerWorld;
+
+import java.util.function.BiConsumer;
+
+// Per-world SpawnData keyed by ChunkPos.toLong(), kept in least recently used order. Idle
+// chunks are evicted a few at a time from the cold end and folded into coarse 8x8 chunk
+// region records, and the chunk and region counts are both capped, so memory stays flat no
+// matter how long the server runs. The cap can force out a chunk whose buckets are still
+// drained; its region remembers when they would be full again, and chunks of that region
+// that come back start their buckets from there instead of full.
+class SpawnDataStore {
+    private static final int REGION_BITS = 3; // 8x8 chunks
+
+    // Counts idle evictions and the ones forced by the cap alike
+    private static final Counter EVICTED = MetricsRegistry.counter("snailspawn.evicted_chunks");
+
+    private final PerWorld<WorldSpawnData> worlds = new PerWorld<>(world -> new WorldSpawnData());
+    // Bucket settings, refreshed once per server tick
+    private float bucketCapacity = 1;
+    private float refillPerTick = 1;
+
+    public void setBuckets(float capacity, float refillPerTick) {
+        this.bucketCapacity = capacity;
+        this.refillPerTick = refillPerTick;
+    }
+
+    public SpawnData getOrCreate(ServerWorld world, long chunkPos, long tick, int maxChunks) {
+        WorldSpawnData data = worlds.get(world);
+        SpawnData spawnData = data.chunks.getAndMoveToLast(chunkPos);
+        if (spawnData == null) {
+            spawnData = new SpawnData(tick);
+            RegionRecord region = data.regions.get(regionOf(chunkPos));
+            if (region != null && region.fullTick > tick) {
+                spawnData.restoreDrained(region.fullTick);
+            }
+            data.chunks.putAndMoveToLast(chunkPos, spawnData);
+            // Over the cap the least recently used chunk goes, idle or not
+            if (data.chunks.size() > maxChunks) {
+                evictFirst(data, maxChunks);
+            }
+        }
+        spawnData.touch(tick);
+        return spawnData;
+    }
+
+    // Evicts up to maxEvictions chunks per world that have been idle for longer than idleTicks
+    public void evictIdle(long tick, long idleTicks, int maxEvictions, int maxChunks) {
+        for (WorldSpawnData data : worlds.values()) {
+            for (int i = 0; i < maxEvictions && !data.chunks.isEmpty(); i++) {
+                if (tick - data.chunks.get(data.chunks.firstLongKey()).getLastActiveTick() <= idleTicks) {
+                    break;
+                }
+                evictFirst(data, maxChunks);
+            }
+        }
+    }
+
+    public void forEachWorld(BiConsumer<ServerWorld, WorldSpawnData> consumer) {
+        worlds.forEach(consumer);
+    }
+
+    public int size() {
+        int size = 0;
+        for (WorldSpawnData data : worlds.values()) {
+            size += data.chunks.size();
+        }
+        return size;
+    }
+
+    public void clear() {
+        worlds.clear();
+    }
+
+    private void evictFirst(WorldSpawnData data, int maxChunks) {
+        long chunkPos = data.chunks.firstLongKey();
+        SpawnData spawnData = data.chunks.removeFirst();
+        EVICTED.increment();
+
+        long regionKey = regionOf(chunkPos);
+        RegionRecord region = data.regions.getAndMoveToLast(regionKey);
+        if (region == null) {
+            region = new RegionRecord();
+            data.regions.putAndMoveToLast(regionKey, region);
+            // A region covers 64 chunks, so a sixteenth of the chunk cap leaves plenty of room.
+            // The oldest region's chunks were evicted longest ago, so their buckets have
+            // normally refilled long before it goes.
+            if (data.regions.size() > Math.max(1, maxChunks / 16)) {
+                data.regions.removeFirst();
+            }
+        }
+        region.merge(spawnData, spawnData.getFullTick(bucketCapacity, refillPerTick));
+    }
+
+    private static long regionOf(long chunkPos) {
+        return ChunkPos.toLong(ChunkPos.getPackedX(chunkPos) >> REGION_BITS, ChunkPos.getPackedZ(chunkPos) >> REGION_BITS);
+    }
+
+    static class WorldSpawnData {
+        private final Long2ObjectLinkedOpenHashMap<SpawnData> chunks = new Long2ObjectLinkedOpenHashMap<>();
+        private final Long2ObjectLinkedOpenHashMap<RegionRecord> regions = new Long2ObjectLinkedOpenHashMap<>();
+
+        public int getChunkCount() {
+            return chunks.size();
+        }
+
+        public int getRegionCount() {
+            return regions.size();
+        }
+
+        public int countActiveSince(long tick) {
+            int active = 0;
+            for (SpawnData data : chunks.values()) {
+                if (data.getLastActiveTick() >= tick) {
+                    active++;
+                }
+            }
+            return active;
+        }
+
+        // Share of spawn attempts let through, over tracked chunks and evicted ones together
+        public double getSuccessRate() {
+            long total = 0;
+            long successful = 0;
+            for (SpawnData data : chunks.values()) {
+                total += data.getTotalAttempts();
+                successful += data.getSuccessfulAttempts();
+            }
+            for (RegionRecord region : regions.values()) {
+                total += region.totalAttempts;
+                successful += region.successfulAttempts;
+            }
+            return total > 0 ? (double) successful / total : 0;
+        }
+
+        public int getEvictedChunkCount() {
+            int evicted = 0;
+            for (RegionRecord region : regions.values()) {
+                evicted += region.chunks;
+            }
+            return evicted;
+        }
+    }
+
+    // What is left of the chunks evicted from one region
+    static class RegionRecord {
+        private int chunks;
+        private long totalAttempts;
+        private long successfulAttempts;
+        // Tick from which the buckets of every chunk evicted here are full again
+        private long fullTick = Long.MIN_VALUE;
+
+        void merge(SpawnData data, long chunkFullTick) {
+            chunks++;
+            totalAttempts += data.getTotalAttempts();
+            successfulAttempts += data.getSuccessfulAttempts();
+            fullTick = Math.max(fullTick, chunkFullTick);
+        }
+    }
+}
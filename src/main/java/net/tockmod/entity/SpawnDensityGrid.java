@@ -0,0 +1,138 @@
+package net.tockmod.entity;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.SpawnGroup;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.Box;
+
+import java.util.Arrays;
+
+// Mob counts per spawn group for each 4x4 chunk region of one world. A region is counted from
+// the entities inside it the first time spawning asks about it, recounted once its count is
+// older than the recount interval, and bumped by every natural spawn in between, so it drifts
+// only by the mobs that moved, died or despawned since. Only regions spawning actually reaches
+// are ever counted, and their recounts fall on different ticks.
+class SpawnDensityGrid {
+    static final int REGION_BITS = 2; // 4x4 chunks
+    private static final int GROUPS = SpawnGroup.values().length;
+    private static final int INITIAL_CAPACITY = 256; // Must be a power of two
+    private static final float MAX_LOAD = 0.5f;
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private final int recountInterval;
+    private long[] regions;
+    private long[] countedTicks;
+    private int[] counts; // GROUPS counts per region slot
+    private int mask;
+    private int size = 0;
+    private int resizeThreshold;
+
+    SpawnDensityGrid(int recountInterval) {
+        this.recountInterval = recountInterval;
+        allocate(INITIAL_CAPACITY);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Only regions that are already counted and still fresh are bumped; any other is counted
+    // from scratch the next time it's asked about, which sees the new mob anyway
+    public void add(int chunkX, int chunkZ, SpawnGroup group, long tick) {
+        int slot = findSlot(regionKey(chunkX, chunkZ));
+        if (regions[slot] != EMPTY && isFresh(slot, tick)) {
+            counts[slot * GROUPS + group.ordinal()]++;
+        }
+    }
+
+    public int getCount(ServerWorld world, int chunkX, int chunkZ, SpawnGroup group, long tick) {
+        long key = regionKey(chunkX, chunkZ);
+        int slot = findSlot(key);
+        if (regions[slot] == EMPTY) {
+            regions[slot] = key;
+            if (++size > resizeThreshold) {
+                resize(regions.length << 1, Long.MIN_VALUE);
+                slot = findSlot(key);
+            }
+            recount(world, slot, key, tick);
+        } else if (!isFresh(slot, tick)) {
+            recount(world, slot, key, tick);
+        }
+        return counts[slot * GROUPS + group.ordinal()];
+    }
+
+    // Forgets regions whose counts have gone stale, they are counted afresh if spawning gets back
+    // to them, so the grid only holds the regions spawning is reaching now
+    public void prune(long tick) {
+        resize(regions.length, tick - recountInterval);
+    }
+
+    private boolean isFresh(int slot, long tick) {
+        return tick - countedTicks[slot] < recountInterval;
+    }
+
+    private void recount(ServerWorld world, int slot, long key, long tick) {
+        int base = slot * GROUPS;
+        Arrays.fill(counts, base, base + GROUPS, 0);
+        countedTicks[slot] = tick;
+
+        int minX = (int) key << (REGION_BITS + 4);
+        int minZ = (int) (key >> 32) << (REGION_BITS + 4);
+        int span = 16 << REGION_BITS;
+        Box box = new Box(minX, world.getBottomY(), minZ, minX + span, world.getBottomY() + world.getHeight(), minZ + span);
+        // Counted in the predicate, which keeps nothing, so the query never builds a result list.
+        // The box also catches entities hanging over the border, only those inside are counted.
+        world.getOtherEntities(null, box, entity -> {
+            SpawnGroup group = entity.getType().getSpawnGroup();
+            if (group != SpawnGroup.MISC && regionKey(entity.getChunkPos().x, entity.getChunkPos().z) == key) {
+                counts[base + group.ordinal()]++;
+            }
+            return false;
+        });
+    }
+
+    private int findSlot(long key) {
+        int slot = hash(key) & mask;
+        long existing;
+        while ((existing = regions[slot]) != EMPTY && existing != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    // Also drops every region counted before the given tick
+    private void resize(int capacity, long countedSince) {
+        long[] oldRegions = regions;
+        long[] oldCountedTicks = countedTicks;
+        int[] oldCounts = counts;
+        allocate(capacity);
+        for (int i = 0; i < oldRegions.length; i++) {
+            if (oldRegions[i] != EMPTY && oldCountedTicks[i] >= countedSince) {
+                int slot = findSlot(oldRegions[i]);
+                regions[slot] = oldRegions[i];
+                countedTicks[slot] = oldCountedTicks[i];
+                System.arraycopy(oldCounts, i * GROUPS, counts, slot * GROUPS, GROUPS);
+                size++;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        regions = new long[capacity];
+        Arrays.fill(regions, EMPTY);
+        countedTicks = new long[capacity];
+        counts = new int[capacity * GROUPS];
+        mask = capacity - 1;
+        size = 0;
+        resizeThreshold = (int) (capacity * MAX_LOAD);
+    }
+
+    private static long regionKey(int chunkX, int chunkZ) {
+        return ((chunkX >> REGION_BITS) & 0xFFFFFFFFL) | (((long) (chunkZ >> REGION_BITS) & 0xFFFFFFFFL) << 32);
+    }
+
+    private static int hash(long key) {
+        return (int) HashCommon.mix(key);
+    }
+}
@@ -0,0 +1,24 @@
+package net.tockmod.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// One per server tick rather than per mob, which would flood the recording
+@Name("tock.ColdSkip")
+@Label("Cold Chunk Skips")
+@Description("Mob ticks skipped during one server tick because their chunk was cold")
+@Category({"Tock", "ChunkFuse"})
+@Enabled(false)
+@StackTrace(false)
+public class ColdSkipEvent extends Event {
+    @Label("Server Tick")
+    public long tick;
+
+    @Label("Skipped Mob Ticks")
+    public int skippedMobTicks;
+}
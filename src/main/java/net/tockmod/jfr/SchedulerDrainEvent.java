@@ -0,0 +1,32 @@
+package net.tockmod.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// A duration event: it spans the drain itself
+@Name("tock.SchedulerDrain")
+@Label("Scheduler Drain")
+@Description("One pass of the Smart Scheduler over a world's due tasks, inside that world's tick")
+@Category({"Tock", "Scheduler"})
+@Enabled(false)
+@StackTrace(false)
+public class SchedulerDrainEvent extends Event {
+    @Label("World")
+    public String world;
+
+    @Label("Processed Tasks")
+    public int processed;
+
+    @Label("Deferred Tasks")
+    @Description("Due tasks left for a later tick because the budget ran out")
+    public int deferred;
+
+    @Label("Oldest Deferral")
+    @Description("Ticks the oldest deferred task has been waiting")
+    public long oldestDeferralTicks;
+}
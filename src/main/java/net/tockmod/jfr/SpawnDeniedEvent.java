@@ -0,0 +1,32 @@
+package net.tockmod.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("tock.SpawnDenied")
+@Label("Spawn Denied")
+@Description("A spawn SnailSpawn turned down")
+@Category({"Tock", "SnailSpawn"})
+@Enabled(false)
+@StackTrace(false)
+public class SpawnDeniedEvent extends Event {
+    public static final String TICK_CAP = "Tick cap";
+    public static final String NO_TOKENS = "Out of tokens";
+
+    @Label("Reason")
+    public String reason;
+
+    @Label("Entity Type")
+    public String entityType;
+
+    @Label("Chunk X")
+    public int chunkX;
+
+    @Label("Chunk Z")
+    public int chunkZ;
+}
@@ -0,0 +1,32 @@
+package net.tockmod.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+@Name("tock.TickBudget")
+@Label("Tick Budget")
+@Description("Server tick time against NeuroTick's budget and the resulting throttle level")
+@Category({"Tock", "NeuroTick"})
+@Enabled(false)
+@StackTrace(false)
+public class TickBudgetEvent extends Event {
+    @Label("Tick Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long tickTime;
+
+    @Label("Budget")
+    @Timespan(Timespan.MILLISECONDS)
+    public long budget;
+
+    @Label("Over Budget")
+    public boolean overBudget;
+
+    @Label("Throttle Level")
+    public double throttleLevel;
+}
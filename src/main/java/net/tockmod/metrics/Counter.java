@@ -0,0 +1,24 @@
+package net.tockmod.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Monotonic event count. Striped, so the tick thread and worker threads can bump it without
+// contending, and incrementing never allocates.
+public class Counter {
+    private final LongAdder value = new LongAdder();
+
+    Counter() {
+    }
+
+    public void increment() {
+        value.increment();
+    }
+
+    public void add(long amount) {
+        value.add(amount);
+    }
+
+    public long get() {
+        return value.sum();
+    }
+}
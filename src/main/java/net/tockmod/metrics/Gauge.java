@@ -0,0 +1,18 @@
+package net.tockmod.metrics;
+
+// Last value of something the owner measures anyway, like a queue size. Set by the owning
+// thread, read by anyone.
+public class Gauge {
+    private volatile double value = 0;
+
+    Gauge() {
+    }
+
+    public void set(double value) {
+        this.value = value;
+    }
+
+    public double get() {
+        return value;
+    }
+}
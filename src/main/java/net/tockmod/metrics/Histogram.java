@@ -0,0 +1,66 @@
+package net.tockmod.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Distribution of non-negative values in power-of-two buckets. Recording is a few striped
+// adds and never allocates; percentiles are only as exact as the bucket they fall in.
+public class Histogram {
+    private static final int BUCKETS = 64;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    Histogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long value) {
+        value = Math.max(0, value);
+        // Bucket i holds [2^i, 2^(i+1)), with zero sharing bucket 0
+        buckets[value == 0 ? 0 : BUCKETS - 1 - Long.numberOfLeadingZeros(value)].increment();
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public double getMean() {
+        long samples = count.sum();
+        return samples > 0 ? sum.sum() / (double) samples : 0;
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    // Upper bound of the bucket holding the percentile, p in [0, 1]
+    public long getPercentile(double p) {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long target = Math.max(1, (long) Math.ceil(p * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return Math.min(i == BUCKETS - 1 ? Long.MAX_VALUE : (2L << i) - 1, getMax());
+            }
+        }
+        return getMax();
+    }
+}
@@ -0,0 +1,64 @@
+package net.tockmod.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Process-wide named metrics. Hot paths look their metrics up once, into static final fields,
+// and from then on only touch striped adders; nothing here is on the tick path after that.
+public final class MetricsRegistry {
+    private static final Map<String, Counter> COUNTERS = new ConcurrentHashMap<>();
+    private static final Map<String, Gauge> GAUGES = new ConcurrentHashMap<>();
+    private static final Map<String, Histogram> HISTOGRAMS = new ConcurrentHashMap<>();
+
+    private MetricsRegistry() {
+    }
+
+    public static Counter counter(String name) {
+        return COUNTERS.computeIfAbsent(name, key -> new Counter());
+    }
+
+    public static Gauge gauge(String name) {
+        return GAUGES.computeIfAbsent(name, key -> new Gauge());
+    }
+
+    public static Histogram histogram(String name) {
+        return HISTOGRAMS.computeIfAbsent(name, key -> new Histogram());
+    }
+
+    public static Map<String, Long> getCounterValues() {
+        Map<String, Long> values = new TreeMap<>();
+        COUNTERS.forEach((name, counter) -> values.put(name, counter.get()));
+        return values;
+    }
+
+    // One line per metric, sorted by name
+    public static List<String> describe() {
+        List<String> lines = new ArrayList<>();
+        getCounterValues().forEach((name, value) -> lines.add(name + ": " + value));
+        lines.addAll(describeGauges());
+        lines.addAll(describeHistograms());
+        return lines;
+    }
+
+    public static List<String> describeGauges() {
+        List<String> lines = new ArrayList<>();
+        new TreeMap<>(GAUGES).forEach((name, gauge) -> lines.add(String.format("%s: %.2f", name, gauge.get())));
+        return lines;
+    }
+
+    public static List<String> describeHistograms() {
+        List<String> lines = new ArrayList<>();
+        new TreeMap<>(HISTOGRAMS).forEach((name, histogram) -> lines.add(String.format(
+            "%s: n=%d mean=%.1f p50<=%d p99<=%d max=%d",
+            name,
+            histogram.getCount(),
+            histogram.getMean(),
+            histogram.getPercentile(0.5),
+            histogram.getPercentile(0.99),
+            histogram.getMax())));
+        return lines;
+    }
+}
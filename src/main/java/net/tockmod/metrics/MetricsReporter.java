@@ -0,0 +1,60 @@
+package net.tockmod.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Builds the periodic metrics summary on its own thread, so the tick thread never walks
+// subsystem state just to log it. The summary is debug output; state changes are logged by
+// the subsystems themselves.
+public class MetricsReporter {
+    private static final Logger LOGGER = LoggerFactory.getLogger("Tock/Metrics");
+    private ScheduledExecutorService executor;
+    private final Map<String, Long> lastCounterValues = new HashMap<>();
+
+    public synchronized void start(int intervalSeconds) {
+        if (executor != null || intervalSeconds <= 0) {
+            return;
+        }
+
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Tock Metrics Reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleAtFixedRate(() -> report(intervalSeconds), intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        lastCounterValues.clear();
+    }
+
+    private void report(int intervalSeconds) {
+        if (!LOGGER.isDebugEnabled()) {
+            return;
+        }
+
+        try {
+            LOGGER.debug("=== Metrics Summary ===");
+            // Counters are shown as their rate over the last interval as well as in total
+            MetricsRegistry.getCounterValues().forEach((name, value) -> {
+                long delta = value - lastCounterValues.getOrDefault(name, 0L);
+                lastCounterValues.put(name, value);
+                LOGGER.debug("  {}: {} ({}/s)", name, value, String.format("%.1f", delta / (double) intervalSeconds));
+            });
+            MetricsRegistry.describeGauges().forEach(line -> LOGGER.debug("  {}", line));
+            MetricsRegistry.describeHistograms().forEach(line -> LOGGER.debug("  {}", line));
+        } catch (Exception e) {
+            LOGGER.error("Failed to build metrics summary", e);
+        }
+    }
+}
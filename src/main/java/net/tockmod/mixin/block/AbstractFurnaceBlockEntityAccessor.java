@@ -0,0 +1,23 @@
+package net.tockmod.mixin.block;
+
+import net.minecraft.block.entity.AbstractFurnaceBlockEntity;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Accessor;
+
+@Mixin(AbstractFurnaceBlockEntity.class)
+public interface AbstractFurnaceBlockEntityAccessor {
+    @Accessor("litTimeRemaining")
+    int tock$getLitTimeRemaining();
+
+    @Accessor("litTimeRemaining")
+    void tock$setLitTimeRemaining(int ticks);
+
+    @Accessor("cookingTimeSpent")
+    int tock$getCookingTimeSpent();
+
+    @Accessor("cookingTimeSpent")
+    void tock$setCookingTimeSpent(int ticks);
+
+    @Accessor("cookingTotalTime")
+    int tock$getCookingTotalTime();
+}
@@ -0,0 +1,32 @@
+package net.tockmod.mixin.block;
+
+import net.minecraft.block.AbstractBlock;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.random.Random;
+import net.tockmod.TockMod;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(AbstractBlock.AbstractBlockState.class)
+public class BlockStateMixin {
+    // Scheduled ticks run one at a time on the server thread, vanilla or replayed by the scheduler
+    @Unique
+    private static long tock$scheduledTickCostStart;
+
+    // Scheduled block ticks are what drives redstone, so a chunk running them is in use
+    @Inject(method = "scheduledTick", at = @At("HEAD"))
+    private void onScheduledTick(ServerWorld world, BlockPos pos, Random random, CallbackInfo ci) {
+        TockMod.getInstance().getChunkFuseManager().markMachineActive(world, pos);
+        tock$scheduledTickCostStart = TockMod.getInstance().getChunkFuseManager().startCostSample(pos.asLong());
+    }
+
+    @Inject(method = "scheduledTick", at = @At("RETURN"))
+    private void onScheduledTickEnd(ServerWorld world, BlockPos pos, Random random, CallbackInfo ci) {
+        TockMod.getInstance().getChunkFuseManager().endCostSample(world, ChunkPos.toLong(pos), tock$scheduledTickCostStart);
+    }
+}
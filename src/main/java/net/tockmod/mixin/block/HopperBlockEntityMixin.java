@@ -0,0 +1,26 @@
+package net.tockmod.mixin.block;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.block.entity.HopperBlockEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import net.tockmod.TockMod;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+import java.util.function.BooleanSupplier;
+
+@Mixin(HopperBlockEntity.class)
+public class HopperBlockEntityMixin {
+    // Only hoppers that actually moved items keep their chunk active
+    @Inject(method = "insertAndExtract", at = @At("RETURN"))
+    private static void onInsertAndExtract(World world, BlockPos pos, BlockState state, HopperBlockEntity blockEntity,
+                                           BooleanSupplier shouldExtract, CallbackInfoReturnable<Boolean> cir) {
+        if (cir.getReturnValueZ() && world instanceof ServerWorld serverWorld) {
+            TockMod.getInstance().getChunkFuseManager().markMachineActive(serverWorld, pos);
+        }
+    }
+}
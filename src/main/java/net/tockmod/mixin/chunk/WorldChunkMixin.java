@@ -0,0 +1,82 @@
+package net.tockmod.mixin.chunk;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.WorldChunk;
+import net.tockmod.TockMod;
+import net.tockmod.chunk.SuspendableChunk;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+@Mixin(WorldChunk.class)
+public class WorldChunkMixin implements SuspendableChunk {
+    @Unique
+    private long tock$suspendedSince = -1;
+    @Unique
+    private long tock$checkedTick = -1;
+    @Unique
+    private long tock$randomTickDebt = 0;
+
+    @Override
+    public long tock$getSuspendedSince() {
+        return tock$suspendedSince;
+    }
+
+    @Override
+    public void tock$setSuspendedSince(long tick) {
+        tock$suspendedSince = tick;
+    }
+
+    @Override
+    public long tock$getCheckedTick() {
+        return tock$checkedTick;
+    }
+
+    @Override
+    public void tock$setCheckedTick(long tick) {
+        tock$checkedTick = tick;
+    }
+
+    @Override
+    public long tock$getRandomTickDebt() {
+        return tock$randomTickDebt;
+    }
+
+    @Override
+    public void tock$setRandomTickDebt(long picks) {
+        tock$randomTickDebt = picks;
+    }
+
+    @Inject(method = "setBlockState", at = @At("RETURN"))
+    private void onSetBlockState(BlockPos pos, BlockState state, int flags, CallbackInfoReturnable<BlockState> cir) {
+        // A null return means nothing changed
+        WorldChunk chunk = (WorldChunk) (Object) this;
+        if (cir.getReturnValue() != null && chunk.getWorld() instanceof ServerWorld world) {
+            TockMod.getInstance().getBlockCache().onBlockChanged(world, pos);
+        }
+    }
+
+    // The chunk's ticks are collected here for saving, so ticks Tock is holding back go in first
+    @Inject(method = "getTickSchedulers", at = @At("HEAD"))
+    private void onGetTickSchedulers(long time, CallbackInfoReturnable<Chunk.TickSchedulers> cir) {
+        WorldChunk chunk = (WorldChunk) (Object) this;
+        if (chunk.getWorld() instanceof ServerWorld world) {
+            TockMod.getInstance().getSmartScheduler().onChunkSaving(world, chunk);
+        }
+    }
+
+    // Every block entity ticker of the chunk asks this before ticking; it reads what tickChunk decided
+    @Inject(method = "canTickBlockEntity", at = @At("HEAD"), cancellable = true)
+    private void onCanTickBlockEntity(BlockPos pos, CallbackInfoReturnable<Boolean> cir) {
+        WorldChunk chunk = (WorldChunk) (Object) this;
+        if (chunk.getWorld() instanceof ServerWorld world
+            && TockMod.getInstance().getChunkFuseManager().isSuspended(world, chunk)) {
+            cir.setReturnValue(false);
+        }
+    }
+}
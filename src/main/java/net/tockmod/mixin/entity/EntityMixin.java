@@ -0,0 +1,22 @@
+package net.tockmod.mixin.entity;
+
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.MovementType;
+import net.minecraft.util.math.Vec3d;
+import net.tockmod.entity.LodTickedEntity;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(Entity.class)
+public class EntityMixin {
+    // Collision is the expensive part of moving, so a mob between its reduced-rate ticks doesn't move at all.
+    // Its phase tick moves it by that tick's velocity only; the skipped ticks' distance is not made up.
+    @Inject(method = "move", at = @At("HEAD"), cancellable = true)
+    private void onMoveStart(MovementType type, Vec3d movement, CallbackInfo ci) {
+        if (type == MovementType.SELF && this instanceof LodTickedEntity entity && entity.tock$getTickScale() == 0) {
+            ci.cancel();
+        }
+    }
+}
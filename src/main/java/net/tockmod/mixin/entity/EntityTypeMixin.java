@@ -0,0 +1,22 @@
+package net.tockmod.mixin.entity;
+
+import net.minecraft.entity.EntityType;
+import net.minecraft.registry.Registries;
+import net.tockmod.entity.IndexedEntityType;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
+
+@Mixin(EntityType.class)
+public class EntityTypeMixin implements IndexedEntityType {
+    @Unique
+    private int tock$rawId = -1;
+
+    @Override
+    public int tock$getRawId() {
+        // The registry is frozen before anything ticks, so the id never changes once read
+        if (tock$rawId < 0) {
+            tock$rawId = Registries.ENTITY_TYPE.getRawId((EntityType<?>) (Object) this);
+        }
+        return tock$rawId;
+    }
+}
@@ -2,35 +2,54 @@ package net.tockmod.mixin.entity;
 
 import net.minecraft.entity.mob.MobEntity;
 import net.minecraft.server.world.ServerWorld;
-import net.minecraft.util.math.ChunkPos;
 import net.tockmod.TockMod;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import net.tockmod.entity.LodTickedEntity;
+import net.tockmod.metrics.Counter;
+import net.tockmod.metrics.MetricsRegistry;
 import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 
 @Mixin(MobEntity.class)
-public class MobMixin {
-    private static final Logger LOGGER = LoggerFactory.getLogger("Tock/Mixin/Mob");
+public class MobMixin implements LodTickedEntity {
+    private static final Counter COLD_SKIPPED = MetricsRegistry.counter("chunkfuse.cold_mob_ticks_skipped");
+
+    // Set around each tick by ServerWorldMixin
+    @Unique
+    private int tock$tickScale = 1;
+
+    @Override
+    public int tock$getTickScale() {
+        return tock$tickScale;
+    }
+
+    @Override
+    public void tock$setTickScale(int scale) {
+        tock$tickScale = scale;
+    }
 
     @Inject(method = "tick", at = @At("HEAD"), cancellable = true)
     private void onTickStart(CallbackInfo ci) {
-        LOGGER.debug("Inject: onTickStart triggered for {}", this.getClass().getSimpleName());
         MobEntity mob = (MobEntity) (Object) this;
-        
-        // Skip ticking if the chunk is cold
-        if (mob.getWorld() instanceof ServerWorld) {
-            ServerWorld world = (ServerWorld) mob.getWorld();
-            ChunkPos chunkPos = new ChunkPos(mob.getBlockPos());
-            
-            if (TockMod.getInstance().getChunkFuseManager().isChunkCold(chunkPos)) {
-                LOGGER.debug("Skipping tick for mob {} in cold chunk {}", mob.getType(), chunkPos);
-                ci.cancel();
-            }
-        } else {
-            LOGGER.debug("Mob {} is not in a ServerWorld, skipping cold chunk check", mob.getType());
+        if (!(mob.getWorld() instanceof ServerWorld world)) {
+            return;
+        }
+
+        // Skip ticking if the chunk is cold; the entity already caches its ChunkPos
+        if (TockMod.getInstance().getChunkFuseManager().isChunkCold(world, mob.getChunkPos().toLong())) {
+            COLD_SKIPPED.increment();
+            TockMod.getInstance().getChunkFuseManager().recordColdSkip();
+            ci.cancel();
+        }
+    }
+
+    // Far-away mobs only think on their phase tick; their movement is skipped in EntityMixin
+    @Inject(method = "tickNewAi", at = @At("HEAD"), cancellable = true)
+    private void onTickNewAi(CallbackInfo ci) {
+        if (tock$tickScale == 0) {
+            ci.cancel();
         }
     }
-} 
\ No newline at end of file
+}
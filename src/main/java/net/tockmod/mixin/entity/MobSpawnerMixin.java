@@ -1,27 +1,26 @@
 package net.tockmod.mixin.entity;
 
-import net.minecraft.entity.EntityType;
-import net.minecraft.entity.SpawnReason;
+import net.minecraft.block.spawner.MobSpawnerLogic;
+import net.minecraft.entity.Entity;
 import net.minecraft.server.world.ServerWorld;
-import net.minecraft.util.math.BlockPos;
-import net.minecraft.util.math.ChunkPos;
-import net.minecraft.block.entity.MobSpawnerBlockEntity;
 import net.tockmod.TockMod;
+import net.tockmod.entity.SnailSpawnManager;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.injection.At;
-import org.spongepowered.asm.mixin.injection.Inject;
-import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+import org.spongepowered.asm.mixin.injection.Redirect;
 
-@Mixin(MobSpawnerBlockEntity.class)
+@Mixin(MobSpawnerLogic.class)
 public class MobSpawnerMixin {
-    @Inject(method = "spawnEntity(Lnet/minecraft/server/world/ServerWorld;Lnet/minecraft/util/math/BlockPos;Lnet/minecraft/entity/EntityType;Lnet/minecraft/entity/SpawnReason;)Z", at = @At("HEAD"), cancellable = true)
-    private void onSpawnEntity(ServerWorld world, BlockPos pos, EntityType<?> entityType, SpawnReason reason, CallbackInfoReturnable<Boolean> cir) {
-        ChunkPos chunkPos = new ChunkPos(pos);
-        
-        // Check if we can spawn this entity
-        if (!TockMod.getInstance().getSnailSpawnManager().canSpawnEntity(chunkPos, entityType)) {
-            cir.setReturnValue(false);
-            cir.cancel();
+    @Redirect(method = "serverTick", at = @At(value = "INVOKE", target = "Lnet/minecraft/server/world/ServerWorld;spawnNewEntityAndPassengers(Lnet/minecraft/entity/Entity;)Z"))
+    private boolean onSpawnEntity(ServerWorld world, Entity entity) {
+        SnailSpawnManager snailSpawn = TockMod.getInstance().getSnailSpawnManager();
+        if (snailSpawn.canSpawnEntity(world, entity.getChunkPos(), entity.getType())) {
+            return world.spawnNewEntityAndPassengers(entity);
         }
+
+        // Denied spawns are paced into later ticks instead of being lost. Nothing spawned now, so the
+        // spawner resets its delay without the spawn effects, as it does for any failed spawn.
+        snailSpawn.deferSpawn(world, entity);
+        return false;
     }
-} 
\ No newline at end of file
+}
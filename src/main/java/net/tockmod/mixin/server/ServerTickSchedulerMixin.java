@@ -1,76 +1,66 @@
 package net.tockmod.mixin.server;
 
-import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.world.ServerWorld;
-import net.minecraft.world.tick.SimpleTickScheduler;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.tick.OrderedTick;
+import net.minecraft.world.tick.WorldTickScheduler;
 import net.tockmod.TockMod;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import net.tockmod.config.ModConfig;
+import net.tockmod.scheduler.DeferredTick;
+import net.tockmod.scheduler.SmartScheduler;
+import net.tockmod.scheduler.TickTypes;
+import net.tockmod.scheduler.WorldBoundTickScheduler;
 import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 
-@Mixin(SimpleTickScheduler.class)
-public class ServerTickSchedulerMixin {
-    private static final Logger LOGGER = LoggerFactory.getLogger("Tock/Mixin/TickScheduler");
-    private static int tickCount = 0;
+@Mixin(WorldTickScheduler.class)
+public class ServerTickSchedulerMixin implements WorldBoundTickScheduler {
+    @Unique
+    private ServerWorld tock$world;
 
-    @Inject(method = "tick", at = @At("HEAD"))
-    private void onTickStart(CallbackInfo ci) {
-        LOGGER.debug("Inject: onTickStart triggered for {}", this.getClass().getSimpleName());
-        MinecraftServer server = TockMod.getInstance().getServer();
-        if (server == null) {
-            LOGGER.error("Failed to retrieve MinecraftServer in onTickStart");
-            return;
-        }
-        TockMod.getInstance().getSmartScheduler().onServerTickStart(server);
-        
-        // Log every 100 ticks
-        if (++tickCount % 100 == 0) {
-            LOGGER.debug("100 ticks passed in TickScheduler");
-        }
+    @Override
+    public void tock$bind(ServerWorld world) {
+        this.tock$world = world;
     }
 
-    @Inject(method = "tick", at = @At("RETURN"))
-    private void onTickEnd(CallbackInfo ci) {
-        LOGGER.debug("Inject: onTickEnd triggered for {}", this.getClass().getSimpleName());
-        MinecraftServer server = TockMod.getInstance().getServer();
-        if (server == null) {
-            LOGGER.error("Failed to retrieve MinecraftServer in onTickEnd");
+    @Inject(method = "scheduleTick", at = @At("HEAD"), cancellable = true)
+    private void onScheduleTick(OrderedTick<?> orderedTick, CallbackInfo ci) {
+        ServerWorld world = this.tock$world;
+        if (world == null || DeferredTick.isHandingBack() || !ModConfig.getInstance().schedulerEnabled) {
             return;
         }
-        TockMod.getInstance().getSmartScheduler().onServerTickEnd(server);
-    }
 
-    @Inject(method = "scheduleTick", at = @At("HEAD"), cancellable = true)
-    private void onScheduleTick(BlockPos pos, Object object, int delay, CallbackInfo ci) {
-        LOGGER.debug("Inject: onScheduleTick triggered for {} at {}", this.getClass().getSimpleName(), pos);
-        MinecraftServer server = TockMod.getInstance().getServer();
-        if (server == null) {
-            LOGGER.error("Failed to retrieve MinecraftServer in onScheduleTick");
+        // Only ticks opted in to deferral are taken over; the rest keep vanilla's exact timing
+        SmartScheduler scheduler = TockMod.getInstance().getSmartScheduler();
+        if (!scheduler.isDeferrable(orderedTick.type())) {
             return;
         }
 
-        // Get the overworld as our default world for scheduling
-        ServerWorld world = server.getOverworld();
-        if (world == null) {
-            LOGGER.error("Failed to retrieve overworld in onScheduleTick");
+        // Ticks for chunks that are not ticking stay with vanilla so they are saved with the chunk
+        BlockPos pos = orderedTick.pos();
+        if (!world.shouldTickBlocksInChunk(ChunkPos.toLong(pos))) {
             return;
         }
 
-        // Use our smart scheduler instead
-        TockMod.getInstance().getSmartScheduler().scheduleTask(world, pos, () -> {
-            try {
-                LOGGER.debug("Executing scheduled task at {}", pos);
-                // Original tick logic would go here
-            } catch (Exception e) {
-                LOGGER.error("Task at {} failed: {}", pos, e.getMessage(), e);
-            }
-        }, delay);
-        
-        LOGGER.debug("Cancelling original scheduling for task at {}", pos);
+        scheduler.deferTick(world, pos, orderedTick.type(), orderedTick.priority(), orderedTick.triggerTick());
         ci.cancel(); // Prevent the original scheduling
     }
-} 
\ No newline at end of file
+
+    @Inject(method = "isQueued", at = @At("HEAD"), cancellable = true)
+    private void onIsQueued(BlockPos pos, Object type, CallbackInfoReturnable<Boolean> cir) {
+        ServerWorld world = this.tock$world;
+        if (world == null || !world.getServer().isOnThread()) {
+            return;
+        }
+
+        // Blocks like repeaters check this before rescheduling, so held-back ticks must count
+        if (TockMod.getInstance().getSmartScheduler().isPending(world, pos, TickTypes.of(type))) {
+            cir.setReturnValue(true);
+        }
+    }
+}
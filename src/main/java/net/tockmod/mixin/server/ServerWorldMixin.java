@@ -1,23 +1,121 @@
 package net.tockmod.mixin.server;
 
+import com.llamalad7.mixinextras.injector.wrapoperation.Operation;
+import com.llamalad7.mixinextras.injector.wrapoperation.WrapOperation;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.mob.MobEntity;
 import net.minecraft.server.world.ServerWorld;
+import net.minecraft.world.chunk.WorldChunk;
 import net.tockmod.TockMod;
+import net.tockmod.entity.LodTickedEntity;
+import net.tockmod.profiler.TickContext;
+import net.tockmod.scheduler.WorldBoundTickScheduler;
+import net.tockmod.tick.TickCategory;
 import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.ModifyVariable;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 
 @Mixin(ServerWorld.class)
 public class ServerWorldMixin {
+    @Unique
+    private long tock$entityCostStart;
+    @Unique
+    private long tock$entityTypeCostStart;
+
+    @Inject(method = "<init>", at = @At("RETURN"))
+    private void onInit(CallbackInfo ci) {
+        ServerWorld world = (ServerWorld) (Object) this;
+        ((WorldBoundTickScheduler) world.getBlockTickScheduler()).tock$bind(world);
+        ((WorldBoundTickScheduler) world.getFluidTickScheduler()).tock$bind(world);
+    }
+
     @Inject(method = "tick", at = @At("HEAD"))
     private void onTickStart(CallbackInfo ci) {
         ServerWorld world = (ServerWorld) (Object) this;
-        TockMod.getInstance().getNeuroTickController().onServerTickStart(world.getServer());
+        TickContext.enterWorld(world);
+        TockMod.getInstance().getNeuroTickController().onWorldTickStart(world);
     }
 
     @Inject(method = "tick", at = @At("RETURN"))
     private void onTickEnd(CallbackInfo ci) {
         ServerWorld world = (ServerWorld) (Object) this;
-        TockMod.getInstance().getNeuroTickController().onServerTickEnd(world.getServer());
+        TockMod.getInstance().getNeuroTickController().onWorldTickEnd(world);
+        TickContext.exitWorld();
+    }
+
+    @Inject(method = "tickEntity", at = @At("HEAD"))
+    private void onTickEntityStart(Entity entity, CallbackInfo ci) {
+        TickContext.enterSubject(entity.getType());
+        tock$entityCostStart = TockMod.getInstance().getChunkFuseManager().startCostSample(entity.getId());
+        tock$entityTypeCostStart = TockMod.getInstance().getEntityCostTracker().startSample(entity);
+    }
+
+    @Inject(method = "tickEntity", at = @At("RETURN"))
+    private void onTickEntityEnd(Entity entity, CallbackInfo ci) {
+        ServerWorld world = (ServerWorld) (Object) this;
+        TockMod.getInstance().getEntityCostTracker().endSample(entity, tock$entityTypeCostStart);
+        TockMod.getInstance().getChunkFuseManager().endCostSample(world, entity.getChunkPos().toLong(), tock$entityCostStart);
+        TickContext.exitSubject();
+    }
+
+    // Mob LOD is decided around the whole tick, so the scale is cleared even if the tick throws
+    @WrapOperation(method = "tickEntity", at = @At(value = "INVOKE", target = "Lnet/minecraft/entity/Entity;tick()V"))
+    private void wrapEntityTick(Entity entity, Operation<Void> original) {
+        if (!(entity instanceof MobEntity mob)) {
+            original.call(entity);
+            return;
+        }
+
+        ServerWorld world = (ServerWorld) (Object) this;
+        LodTickedEntity lod = (LodTickedEntity) mob;
+        lod.tock$setTickScale(TockMod.getInstance().getEntityLodManager().getTickScale(world, mob));
+        try {
+            original.call(entity);
+        } finally {
+            lod.tock$setTickScale(1);
+        }
+    }
+
+    // Held ticks replay here, where the world runs its own block ticks, ahead of vanilla's
+    @Inject(method = "tick", at = @At(value = "INVOKE", target = "Lnet/minecraft/world/tick/WorldTickScheduler;tick(JILjava/util/function/BiConsumer;)V", ordinal = 0))
+    private void onScheduledTicksStart(CallbackInfo ci) {
+        TockMod.getInstance().getNeuroTickController().getCostProfiler().begin(TickCategory.SCHEDULED_TICKS);
+        TockMod.getInstance().getSmartScheduler().drainWorld((ServerWorld) (Object) this);
+    }
+
+    @Inject(method = "tick", at = @At(value = "INVOKE", target = "Lnet/minecraft/world/tick/WorldTickScheduler;tick(JILjava/util/function/BiConsumer;)V", ordinal = 1, shift = At.Shift.AFTER))
+    private void onScheduledTicksEnd(CallbackInfo ci) {
+        TockMod.getInstance().getNeuroTickController().getCostProfiler().end(TickCategory.SCHEDULED_TICKS);
+    }
+
+    @Inject(method = "tick", at = @At(value = "INVOKE", target = "Lnet/minecraft/world/EntityList;forEach(Ljava/util/function/Consumer;)V"))
+    private void onEntitiesStart(CallbackInfo ci) {
+        TockMod.getInstance().getNeuroTickController().getCostProfiler().begin(TickCategory.ENTITIES);
+    }
+
+    @Inject(method = "tick", at = @At(value = "INVOKE", target = "Lnet/minecraft/world/EntityList;forEach(Ljava/util/function/Consumer;)V", shift = At.Shift.AFTER))
+    private void onEntitiesEnd(CallbackInfo ci) {
+        TockMod.getInstance().getNeuroTickController().getCostProfiler().end(TickCategory.ENTITIES);
+    }
+
+    @Inject(method = "tick", at = @At(value = "INVOKE", target = "Lnet/minecraft/server/world/ServerWorld;tickBlockEntities()V"))
+    private void onBlockEntitiesStart(CallbackInfo ci) {
+        TockMod.getInstance().getNeuroTickController().getCostProfiler().begin(TickCategory.BLOCK_ENTITIES);
+    }
+
+    @Inject(method = "tick", at = @At(value = "INVOKE", target = "Lnet/minecraft/server/world/ServerWorld;tickBlockEntities()V", shift = At.Shift.AFTER))
+    private void onBlockEntitiesEnd(CallbackInfo ci) {
+        TockMod.getInstance().getNeuroTickController().getCostProfiler().end(TickCategory.BLOCK_ENTITIES);
+    }
+
+    // Suspension is decided here once per chunk per tick, ahead of the chunk's block entities.
+    // Random ticks are suspended by running the chunk at a random tick speed of 0.
+    @ModifyVariable(method = "tickChunk", at = @At("HEAD"), argsOnly = true)
+    private int onTickChunk(int randomTickSpeed, WorldChunk chunk) {
+        ServerWorld world = (ServerWorld) (Object) this;
+        return TockMod.getInstance().getChunkFuseManager().updateSuspension(world, chunk, true) ? 0 : randomTickSpeed;
     }
-} 
\ No newline at end of file
+}
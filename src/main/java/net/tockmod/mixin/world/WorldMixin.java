@@ -0,0 +1,32 @@
+package net.tockmod.mixin.world;
+
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.BlockEntityTickInvoker;
+import net.tockmod.TockMod;
+import net.tockmod.chunk.ChunkFuseManager;
+import net.tockmod.profiler.TickContext;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Redirect;
+
+@Mixin(World.class)
+public class WorldMixin {
+    // Tells the sampling profiler which block entity type a sample landed in, and charges
+    // sampled block entity ticks to their chunk's heat
+    @Redirect(method = "tickBlockEntities", at = @At(value = "INVOKE", target = "Lnet/minecraft/world/chunk/BlockEntityTickInvoker;tick()V"))
+    private void onTickBlockEntity(BlockEntityTickInvoker invoker) {
+        if (!((Object) this instanceof ServerWorld world)) {
+            invoker.tick();
+            return;
+        }
+
+        ChunkFuseManager chunkFuse = TockMod.getInstance().getChunkFuseManager();
+        TickContext.enterSubject(invoker);
+        long start = chunkFuse.startCostSample(invoker.getPos().asLong());
+        invoker.tick();
+        chunkFuse.endCostSample(world, ChunkPos.toLong(invoker.getPos()), start);
+        TickContext.exitSubject();
+    }
+}
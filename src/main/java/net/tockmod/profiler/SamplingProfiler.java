@@ -0,0 +1,206 @@
+package net.tockmod.profiler;
+
+import net.minecraft.entity.EntityType;
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.BlockEntityTickInvoker;
+import net.tockmod.tick.TickCategory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+
+// Samples the server thread's stack from a background thread and folds each sample into a
+// collapsed stack, prefixed with the world, tick phase and entity or block entity type the
+// server thread had published in TickContext. The output is the one-line-per-stack format
+// flame graph tools read. Overhead is bounded by the sample rate, a cap on stack depth and
+// distinct stacks, and a maximum run time after which sampling stops on its own.
+public class SamplingProfiler {
+    private static final Logger LOGGER = LoggerFactory.getLogger("Tock/Profiler");
+    private static final int MAX_FRAMES = 128;
+    private static final int MAX_STACKS = 50_000;
+    private static final String OVERFLOW_STACK = "[too_many_distinct_stacks]";
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    // Guarded by this
+    private final Map<String, long[]> stacks = new HashMap<>();
+    private Thread samplerThread;
+    // Set by the sampler when it runs out of time; the server thread then stops tracking
+    private volatile boolean expired = false;
+    private long samples = 0;
+    private long startedAt = 0;
+    private long stoppedAt = 0;
+
+    public synchronized boolean start(Thread target, int sampleRate, int maxSeconds) {
+        if (samplerThread != null) {
+            return false;
+        }
+
+        expired = false;
+        stacks.clear();
+        samples = 0;
+        startedAt = System.nanoTime();
+        stoppedAt = 0;
+        TickContext.setTracking(true);
+
+        long intervalNanos = 1_000_000_000L / Math.max(1, sampleRate);
+        long stopAt = startedAt + Math.max(1, maxSeconds) * 1_000_000_000L;
+        samplerThread = new Thread(() -> run(target, intervalNanos, stopAt), "Tock Sampling Profiler");
+        samplerThread.setDaemon(true);
+        samplerThread.start();
+        LOGGER.info("Started sampling the server thread at {} Hz for up to {}s", sampleRate, maxSeconds);
+        return true;
+    }
+
+    // Must be called on the server thread, like start
+    public synchronized boolean stop() {
+        if (samplerThread == null) {
+            return false;
+        }
+
+        samplerThread.interrupt();
+        samplerThread = null;
+        stoppedAt = System.nanoTime();
+        TickContext.setTracking(false);
+        LOGGER.info("Stopped sampling after {} samples", samples);
+        return true;
+    }
+
+    public void onServerTickStart() {
+        if (expired) {
+            expired = false;
+            TickContext.setTracking(false);
+        }
+    }
+
+    public synchronized boolean isRunning() {
+        return samplerThread != null;
+    }
+
+    public synchronized long getSampleCount() {
+        return samples;
+    }
+
+    // Time sampled so far, or in the last run once it has stopped
+    public synchronized double getElapsedSeconds() {
+        if (startedAt == 0) {
+            return 0;
+        }
+        long end = samplerThread != null ? System.nanoTime() : stoppedAt;
+        return (end - startedAt) / 1_000_000_000.0;
+    }
+
+    // Writes the stacks gathered so far to a new file in the directory and returns it
+    public Path dump(Path directory) throws IOException {
+        Map<String, long[]> copy;
+        synchronized (this) {
+            copy = new HashMap<>(stacks.size());
+            stacks.forEach((stack, count) -> copy.put(stack, new long[] {count[0]}));
+        }
+
+        Files.createDirectories(directory);
+        String name = "profile-" + LocalDateTime.now().format(FILE_TIME);
+        Path file = directory.resolve(name + ".collapsed");
+        // Dumps within the same second get a sequence number instead of overwriting each other
+        for (int sequence = 1; ; sequence++) {
+            try (BufferedWriter writer = Files.newBufferedWriter(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                writeStacks(writer, copy);
+                return file;
+            } catch (FileAlreadyExistsException e) {
+                file = directory.resolve(name + "-" + sequence + ".collapsed");
+            }
+        }
+    }
+
+    private static void writeStacks(BufferedWriter writer, Map<String, long[]> copy) throws IOException {
+        for (Map.Entry<String, long[]> entry : copy.entrySet()) {
+            writer.write(entry.getKey());
+            writer.write(' ');
+            writer.write(Long.toString(entry.getValue()[0]));
+            writer.newLine();
+        }
+    }
+
+    private void run(Thread target, long intervalNanos, long stopAt) {
+        StringBuilder builder = new StringBuilder(4096);
+        long next = System.nanoTime();
+        while (!Thread.currentThread().isInterrupted()) {
+            long now = System.nanoTime();
+            if (now >= stopAt) {
+                synchronized (this) {
+                    if (samplerThread == Thread.currentThread()) {
+                        samplerThread = null;
+                        stoppedAt = now;
+                        expired = true;
+                        LOGGER.info("Sampling reached its time limit after {} samples, stopping", samples);
+                    }
+                }
+                return;
+            }
+
+            if (now < next) {
+                try {
+                    Thread.sleep((next - now) / 1_000_000, (int) ((next - now) % 1_000_000));
+                } catch (InterruptedException e) {
+                    return;
+                }
+                continue;
+            }
+            // Fall behind rather than burst to catch up
+            next = Math.max(next + intervalNanos, now);
+
+            // The context is read just before the stack walk, so the two can be a hook apart
+            RegistryKey<World> world = TickContext.getWorld();
+            TickCategory phase = TickContext.getPhase();
+            Object subject = TickContext.getSubject();
+            record(collapse(builder, world, phase, subject, target.getStackTrace()));
+        }
+    }
+
+    private static String collapse(StringBuilder builder, RegistryKey<World> world, TickCategory phase,
+                                   Object subject, StackTraceElement[] frames) {
+        builder.setLength(0);
+        builder.append(world != null ? world.getValue().toString() : "server");
+        builder.append(';').append(phase != null ? phase.getDisplayName() : "Other");
+        if (subject instanceof EntityType<?> type) {
+            builder.append(";entity:").append(EntityType.getId(type));
+        } else if (subject instanceof BlockEntityTickInvoker invoker) {
+            builder.append(";blockEntity:").append(invoker.getName());
+        }
+
+        // Stack traces are leaf first, collapsed stacks root first
+        int count = Math.min(frames.length, MAX_FRAMES);
+        for (int i = count - 1; i >= 0; i--) {
+            StackTraceElement frame = frames[i];
+            builder.append(';').append(frame.getClassName()).append('.').append(frame.getMethodName());
+        }
+        // Semicolons separate frames and the last space separates the count
+        return builder.toString().replace(' ', '_');
+    }
+
+    private synchronized void record(String stack) {
+        if (samplerThread == null) {
+            return;
+        }
+        long[] count = stacks.get(stack);
+        if (count == null) {
+            if (stacks.size() >= MAX_STACKS) {
+                count = stacks.computeIfAbsent(OVERFLOW_STACK, key -> new long[1]);
+            } else {
+                count = new long[1];
+                stacks.put(stack, count);
+            }
+        }
+        count[0]++;
+        samples++;
+    }
+}
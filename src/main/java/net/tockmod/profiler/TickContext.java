@@ -0,0 +1,90 @@
+package net.tockmod.profiler;
+
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.world.World;
+import net.tockmod.tick.TickCategory;
+
+// What the server thread is working on, published for the sampling profiler to read from its
+// own thread. Written only while a profile is running; otherwise every hook is a single
+// volatile read.
+public final class TickContext {
+    private static final int MAX_DEPTH = 8;
+
+    private static volatile boolean tracking = false;
+    private static volatile RegistryKey<World> world;
+    private static volatile TickCategory phase;
+    private static volatile Object subject;
+
+    // Phase nesting, owned by the server thread
+    private static final TickCategory[] stack = new TickCategory[MAX_DEPTH];
+    private static int depth = 0;
+
+    private TickContext() {
+    }
+
+    // Called on the server thread, between phases, so nothing is left half entered
+    static void setTracking(boolean enabled) {
+        depth = 0;
+        world = null;
+        phase = null;
+        subject = null;
+        tracking = enabled;
+    }
+
+    public static void enterWorld(ServerWorld serverWorld) {
+        if (tracking) {
+            world = serverWorld.getRegistryKey();
+        }
+    }
+
+    public static void exitWorld() {
+        if (tracking) {
+            world = null;
+        }
+    }
+
+    public static void enterPhase(TickCategory category) {
+        if (!tracking) {
+            return;
+        }
+        if (depth < MAX_DEPTH) {
+            stack[depth] = category;
+        }
+        depth++;
+        phase = category;
+    }
+
+    public static void exitPhase(TickCategory category) {
+        if (!tracking || depth == 0) {
+            return;
+        }
+        depth--;
+        phase = depth > 0 ? stack[Math.min(depth, MAX_DEPTH) - 1] : null;
+    }
+
+    // An EntityType, or a block entity's tick invoker; resolved to a name by the sampler
+    public static void enterSubject(Object type) {
+        if (tracking) {
+            subject = type;
+        }
+    }
+
+    public static void exitSubject() {
+        if (tracking) {
+            subject = null;
+        }
+    }
+
+    static RegistryKey<World> getWorld() {
+        return world;
+    }
+
+    static TickCategory getPhase() {
+        return phase;
+    }
+
+    static Object getSubject() {
+        return subject;
+    }
+}
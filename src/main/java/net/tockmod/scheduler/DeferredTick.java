@@ -0,0 +1,88 @@
+package net.tockmod.scheduler;
+
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.fluid.Fluid;
+import net.minecraft.fluid.FluidState;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.chunk.WorldChunk;
+import net.minecraft.world.tick.OrderedTick;
+import net.minecraft.world.tick.TickPriority;
+
+// A vanilla block or fluid tick held back by the scheduler. When its slot arrives it replays
+// exactly what ServerWorld.tickBlock/tickFluid would have done. If the chunk can no longer
+// tick it is handed back to the vanilla scheduler so it gets saved with the chunk.
+public class DeferredTick implements Runnable {
+    private static boolean handingBack = false;
+
+    private final ServerWorld world;
+    private final BlockPos pos;
+    private final Object type;
+    private final TickPriority priority;
+
+    public DeferredTick(ServerWorld world, BlockPos pos, Object type, TickPriority priority) {
+        this.world = world;
+        this.pos = pos.toImmutable();
+        this.type = type;
+        this.priority = priority;
+    }
+
+    // True while a tick is being returned to vanilla and must not be intercepted again
+    public static boolean isHandingBack() {
+        return handingBack;
+    }
+
+    public BlockPos getPos() {
+        return pos;
+    }
+
+    public boolean isFluid() {
+        return type instanceof Fluid;
+    }
+
+    @Override
+    public void run() {
+        if (!world.getTickManager().shouldTick() || !world.shouldTickBlocksInChunk(ChunkPos.toLong(pos))) {
+            handBack(1);
+            return;
+        }
+
+        if (type instanceof Block block) {
+            BlockState state = world.getBlockState(pos);
+            if (state.isOf(block)) {
+                state.scheduledTick(world, pos, world.random);
+            }
+        } else if (type instanceof Fluid fluid) {
+            FluidState state = world.getFluidState(pos);
+            if (state.isOf(fluid)) {
+                state.onScheduledTick(world, pos, world.getBlockState(pos));
+            }
+        }
+    }
+
+    // Puts the tick straight into the chunk's own schedulers, which works even while the chunk
+    // is on its way out of the world scheduler and is what gets written when it is saved
+    public void handBackTo(WorldChunk chunk, int delay) {
+        long triggerTick = world.getTime() + delay;
+        if (type instanceof Block block) {
+            chunk.getBlockTickScheduler().scheduleTick(new OrderedTick<>(block, pos, triggerTick, priority, world.getTickOrder()));
+        } else if (type instanceof Fluid fluid) {
+            chunk.getFluidTickScheduler().scheduleTick(new OrderedTick<>(fluid, pos, triggerTick, priority, world.getTickOrder()));
+        }
+    }
+
+    public void handBack(int delay) {
+        handingBack = true;
+        try {
+            if (type instanceof Block block) {
+                world.scheduleBlockTick(pos, block, delay, priority);
+            } else if (type instanceof Fluid fluid) {
+                world.scheduleFluidTick(pos, fluid, delay, priority);
+            }
+        } finally {
+            handingBack = false;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package net.tockmod.scheduler;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+// Lock-free multi-producer, single-consumer hand-off from worker threads to the tick thread.
+// Producers CAS-push onto one of several striped stacks picked by thread id, so concurrent
+// producers rarely contend on the same slot. The tick thread swaps each stripe out in one
+// step and reverses it, which keeps every producer's own submissions in FIFO order.
+class IngestionQueue {
+    private static final int STRIPES = 8;
+    // Spread the stripe heads over separate cache lines to avoid false sharing
+    private static final int STRIDE = 16;
+
+    private final AtomicReferenceArray<ScheduledTask> heads = new AtomicReferenceArray<>(STRIPES * STRIDE);
+
+    public void push(ScheduledTask task) {
+        int index = (int) (Thread.currentThread().threadId() & (STRIPES - 1)) * STRIDE;
+        ScheduledTask head;
+        do {
+            head = heads.get(index);
+            task.next = head;
+        } while (!heads.compareAndSet(index, head, task));
+    }
+
+    // Must only be called from the consuming thread
+    public int drainTo(Consumer<ScheduledTask> consumer) {
+        int drained = 0;
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            ScheduledTask task = heads.getAndSet(stripe * STRIDE, null);
+
+            // Stacks come out newest first, flip them back into submission order
+            ScheduledTask reversed = null;
+            while (task != null) {
+                ScheduledTask next = task.next;
+                task.next = reversed;
+                reversed = task;
+                task = next;
+            }
+
+            while (reversed != null) {
+                ScheduledTask next = reversed.next;
+                reversed.next = null;
+                consumer.accept(reversed);
+                reversed = next;
+                drained++;
+            }
+        }
+        return drained;
+    }
+}
@@ -0,0 +1,40 @@
+package net.tockmod.scheduler;
+
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+
+class ScheduledTask implements Runnable {
+    final long id;
+    final ServerWorld world;
+    final BlockPos pos;
+    final long posKey;
+    final int type;
+    final int lane;
+    final Runnable task;
+    final long dueTick;
+
+    // Intrusive link used by the timing wheel buckets
+    ScheduledTask next;
+    // Set when the task was handed back with its chunk; the wheel drops it when it falls due
+    boolean cancelled;
+
+    ScheduledTask(long id, ServerWorld world, BlockPos pos, int type, int lane, Runnable task, long dueTick) {
+        this.id = id;
+        this.world = world;
+        this.pos = pos;
+        this.posKey = pos.asLong();
+        this.type = type;
+        this.lane = lane;
+        this.task = task;
+        this.dueTick = dueTick;
+    }
+
+    @Override
+    public void run() {
+        task.run();
+    }
+
+    public long getDueTick() {
+        return dueTick;
+    }
+}
@@ -1,151 +1,414 @@
 package net.tockmod.scheduler;
 
+import net.minecraft.block.Block;
+import net.minecraft.registry.Registries;
+import net.minecraft.registry.RegistryKeys;
+import net.minecraft.registry.entry.RegistryEntry;
+import net.minecraft.registry.tag.TagKey;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.Identifier;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.chunk.WorldChunk;
+import net.minecraft.world.tick.TickPriority;
 import net.tockmod.config.ModConfig;
+import net.tockmod.jfr.SchedulerDrainEvent;
+import net.tockmod.metrics.Counter;
+import net.tockmod.metrics.Gauge;
+import net.tockmod.metrics.Histogram;
+import net.tockmod.metrics.MetricsRegistry;
+import net.tockmod.tick.NeuroTickController;
+import net.tockmod.tick.ThrottleListener;
+import net.tockmod.tick.TickCategory;
+import net.tockmod.world.PerWorld;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Comparator;
-import java.util.PriorityQueue;
-import java.util.Queue;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
-import java.time.Instant;
+import java.util.function.Consumer;
 
-public class SmartScheduler {
+// Holds back scheduled work and replays it when due. Each world keeps its own wheel on its own
+// clock (World.getTime) and is drained inside its own tick, where vanilla runs its block ticks,
+// so held ticks keep their place in the world tick and worlds never interleave. Only vanilla
+// ticks of the types listed in deferrableTicks are taken over at all; everything else keeps
+// vanilla's exact timing.
+public class SmartScheduler implements ThrottleListener {
     private static final Logger LOGGER = LoggerFactory.getLogger("Tock/Scheduler");
-    private final Queue<ScheduledTask> taskQueue = new PriorityQueue<>(Comparator.comparingInt(ScheduledTask::getPriority));
-    private final Map<BlockPos, ScheduledTask> pendingTasks = new ConcurrentHashMap<>();
+    private static final Counter SCHEDULED = MetricsRegistry.counter("scheduler.scheduled");
+    private static final Counter VANILLA_DEFERRED = MetricsRegistry.counter("scheduler.vanilla_deferred");
+    private static final Counter INGESTED = MetricsRegistry.counter("scheduler.ingested");
+    private static final Counter COALESCED = MetricsRegistry.counter("scheduler.coalesced");
+    private static final Counter IMMEDIATE = MetricsRegistry.counter("scheduler.immediate");
+    private static final Counter EXECUTED = MetricsRegistry.counter("scheduler.executed");
+    private static final Counter FAILED = MetricsRegistry.counter("scheduler.failed");
+    private static final Counter DEFERRED = MetricsRegistry.counter("scheduler.deferred");
+    private static final Counter HANDED_BACK = MetricsRegistry.counter("scheduler.handed_back");
+    private static final Gauge PENDING = MetricsRegistry.gauge("scheduler.pending");
+    private static final Gauge READY = MetricsRegistry.gauge("scheduler.ready");
+    private static final Histogram DRAIN_NANOS = MetricsRegistry.histogram("scheduler.drain_nanos");
+    // Owned by the server thread; other threads hand tasks over through the ingestion queue
+    // The cursor starts a tick back, so ticks due now still run in this tick's drain
+    private final PerWorld<WorldTicks> worldTicks = new PerWorld<>(world -> new WorldTicks(world.getTime() - 1));
+    private final IngestionQueue ingestionQueue = new IngestionQueue();
+    private final Consumer<ScheduledTask> enqueueAction = this::enqueue;
+    private final List<ScheduledTask> chunkTasks = new ArrayList<>();
     private final AtomicLong lastTaskId = new AtomicLong(0);
-    private final AtomicLong lastSummaryTime = new AtomicLong(0);
-    private static final long SUMMARY_INTERVAL = 5000; // 5 seconds
+    private static final int CLOCK_CHECK_INTERVAL = 32; // Tasks between nanoTime reads
+    private static final double MAX_DRAIN_REDUCTION = 0.75; // Share of the budget given up at full throttle
+
+    // TickTypes ids of the vanilla ticks taken over, rebuilt when the config list or the tags change
+    private volatile BitSet deferrableTypes = new BitSet();
+    private List<String> resolvedDeferrableTicks;
+
+    private final NeuroTickController neuroTickController;
+    private volatile double throttleLevel = 0;
+
+    // Set aside at the start of the server tick and spent by the world drains in turn
+    private long drainBudgetNanos = 0;
+    // Drain statistics summed over this tick's worlds, published when the tick ends
+    private int tickProcessedTasks = 0;
+    private int tickDeferredTasks = 0;
+    private long tickOldestDeferralTicks = 0;
+    private long tickDrainNanos = 0;
+
+    // Per-tick drain statistics, written by the server thread
+    private volatile int lastProcessedTasks = 0;
+    private volatile int lastDeferredTasks = 0;
+    private volatile long lastOldestDeferralTicks = 0;
+    private volatile long lastDrainNanos = 0;
+    private final AtomicLong totalDeferredTasks = new AtomicLong(0);
+
+    public SmartScheduler(NeuroTickController neuroTickController) {
+        this.neuroTickController = neuroTickController;
+    }
 
     public void onServerTickStart(MinecraftServer server) {
         if (!ModConfig.getInstance().schedulerEnabled) {
             return;
         }
 
-        // Process high priority tasks
-        int processedTasks = processTasks(server);
-        if (processedTasks > 0) {
-            LOGGER.info("Processed {} tasks in this tick ({} remaining)", processedTasks, taskQueue.size());
+        resolveDeferrableTicks();
+        // Pull in work handed over by other threads; each world releases its own due buckets
+        INGESTED.add(ingestionQueue.drainTo(enqueueAction));
+        drainBudgetNanos = (long) (neuroTickController.getRemainingBudgetNanos(TickCategory.SCHEDULED_TICKS)
+            * (1 - MAX_DRAIN_REDUCTION * throttleLevel));
+        tickProcessedTasks = 0;
+        tickDeferredTasks = 0;
+        tickOldestDeferralTicks = 0;
+        tickDrainNanos = 0;
+    }
+
+    public void onServerTickEnd(MinecraftServer server) {
+        if (!ModConfig.getInstance().schedulerEnabled) {
+            return;
+        }
+
+        boolean wasDeferring = lastDeferredTasks > 0;
+        lastProcessedTasks = tickProcessedTasks;
+        lastDeferredTasks = tickDeferredTasks;
+        lastOldestDeferralTicks = tickOldestDeferralTicks;
+        lastDrainNanos = tickDrainNanos;
+
+        // Only the start and end of a stretch of deferrals are worth a log line
+        if (tickDeferredTasks > 0 && !wasDeferring) {
+            LOGGER.info("Tick budget exhausted, deferring {} due tasks", tickDeferredTasks);
+        } else if (tickDeferredTasks == 0 && wasDeferring) {
+            LOGGER.info("Scheduler caught up with deferred tasks");
         }
 
-        // Log task summary every 5 seconds
-        long currentTime = System.currentTimeMillis();
-        if (currentTime - lastSummaryTime.get() > SUMMARY_INTERVAL) {
-            logTaskSummary();
-            lastSummaryTime.set(currentTime);
+        int pending = 0;
+        int ready = 0;
+        for (WorldTicks ticks : worldTicks.values()) {
+            pending += ticks.wheel.size();
+            ready += ticks.wheel.readySize();
         }
+        PENDING.set(pending);
+        READY.set(ready);
     }
 
-    public void onServerTickEnd(MinecraftServer server) {
-        // No-op for now
+    // Tags are only bound once data packs have loaded, and change with them
+    public void onTagsReloaded() {
+        resolvedDeferrableTicks = null;
+    }
+
+    @Override
+    public void onThrottleChanged(double level) {
+        throttleLevel = level;
     }
 
-    public void scheduleTask(ServerWorld world, BlockPos pos, Runnable task, int priority) {
+    // Returns every held-back vanilla tick to its world scheduler so it is saved with the chunk
+    public void onServerStopping(MinecraftServer server) {
+        ingestionQueue.drainTo(enqueueAction);
+        int[] handedBack = new int[1];
+        worldTicks.forEach((world, ticks) -> {
+            long now = world.getTime();
+            ticks.wheel.drainAll(task -> {
+                if (!task.cancelled && task.task instanceof DeferredTick tick) {
+                    tick.handBack((int) Math.max(1, task.dueTick - now));
+                    handedBack[0]++;
+                }
+            });
+        });
+        worldTicks.clear();
+        lastDeferredTasks = 0;
+        LOGGER.info("Handed {} deferred ticks back to vanilla", handedBack[0]);
+    }
+
+    // Called before a chunk is serialized, for autosaves as well as unloads, and again when it
+    // unloads. Held ticks must be back in the chunk by then or they are lost with it.
+    public void onChunkSaving(ServerWorld world, WorldChunk chunk) {
+        WorldTicks ticks = worldTicks.getIfPresent(world);
+        long chunkPos = chunk.getPos().toLong();
+        if (ticks == null || ticks.index.countInChunk(chunkPos) == 0 || !world.getServer().isOnThread()) {
+            return;
+        }
+
+        chunkTasks.clear();
+        ticks.index.collectInChunk(chunkPos, chunkTasks);
+        long now = world.getTime();
+        for (ScheduledTask task : chunkTasks) {
+            if (!(task.task instanceof DeferredTick tick)) {
+                continue;
+            }
+            // The wheel has no unlink, so the task stays in its bucket and is skipped when due
+            ticks.index.remove(task.posKey, task.type, task);
+            task.cancelled = true;
+            tick.handBackTo(chunk, (int) Math.max(1, task.dueTick - now));
+            HANDED_BACK.increment();
+        }
+        chunkTasks.clear();
+    }
+
+    public void scheduleTask(ServerWorld world, BlockPos pos, Runnable task, int delay) {
+        scheduleTask(world, pos, TickTypes.NONE, task, delay);
+    }
+
+    public void scheduleTask(ServerWorld world, BlockPos pos, int type, Runnable task, int delay) {
         if (!ModConfig.getInstance().schedulerEnabled) {
-            LOGGER.debug("Scheduler disabled, executing task immediately at {}", pos);
+            IMMEDIATE.increment();
             task.run();
             return;
         }
 
+        submit(world, pos, type, TickLanes.DEFAULT, task, world.getTime() + Math.max(delay, 0));
+    }
+
+    // Whether vanilla ticks of this block or fluid are opted in to being held back and deferred
+    public boolean isDeferrable(Object type) {
+        int tickType = TickTypes.of(type);
+        return tickType != TickTypes.NONE && deferrableTypes.get(tickType);
+    }
+
+    // Takes over a vanilla block or fluid tick; it is replayed for real when its slot arrives
+    public void deferTick(ServerWorld world, BlockPos pos, Object type, TickPriority priority, long triggerTick) {
+        DeferredTick tick = new DeferredTick(world, pos, type, priority);
+        VANILLA_DEFERRED.increment();
+        submit(world, tick.getPos(), TickTypes.of(type), TickLanes.of(priority, tick.isFluid()), tick, triggerTick);
+    }
+
+    private void submit(ServerWorld world, BlockPos pos, int type, int lane, Runnable task, long dueTick) {
+        // Worker threads (chunk generation etc.) never touch the wheels directly
+        boolean onThread = world.getServer().isOnThread();
+        if (onThread) {
+            // Once a world's drain for a tick has begun, vanilla would only run new ticks on the
+            // next one; running them in the same drain lets blocks that schedule each other loop
+            dueTick = Math.max(dueTick, worldTicks.get(world).wheel.getCurrentTick() + 1);
+        }
+
         ScheduledTask scheduledTask = new ScheduledTask(
             lastTaskId.incrementAndGet(),
             world,
             pos,
+            type,
+            lane,
             task,
-            priority
+            dueTick
         );
 
-        // Check for redundant tasks
-        if (ModConfig.getInstance().enablePreemptiveCancellation) {
-            ScheduledTask existingTask = pendingTasks.get(pos);
-            if (existingTask != null && existingTask.priority <= priority) {
-                LOGGER.warn("Cancelling redundant task at {} (priority: {}, existing: {})", 
-                    pos, 
-                    priority, 
-                    existingTask.priority);
+        if (!onThread) {
+            ingestionQueue.push(scheduledTask);
+            return;
+        }
+
+        enqueue(scheduledTask);
+    }
+
+    void enqueue(ScheduledTask scheduledTask) {
+        WorldTicks ticks = worldTicks.get(scheduledTask.world);
+        // Coalesce redundant ticks the way vanilla does: the first pending tick for a
+        // (world, position, block/fluid) key wins and later duplicates are dropped. Vanilla
+        // ticks are always coalesced since isQueued answers from this index.
+        if (scheduledTask.type != TickTypes.NONE || ModConfig.getInstance().enablePreemptiveCancellation) {
+            ScheduledTask existingTask = ticks.index.putIfAbsent(scheduledTask.posKey, scheduledTask.type, scheduledTask);
+            if (existingTask != null) {
+                COALESCED.increment();
                 return;
             }
         }
 
-        pendingTasks.put(pos, scheduledTask);
-        taskQueue.offer(scheduledTask);
-        LOGGER.info("Scheduled task at {} with priority {} (queue size: {})", 
-            pos, 
-            priority, 
-            taskQueue.size());
+        ticks.wheel.add(scheduledTask);
+        SCHEDULED.increment();
     }
 
-    private int processTasks(MinecraftServer server) {
+    // Called inside the world's tick, right before vanilla runs its own block and fluid ticks
+    public void drainWorld(ServerWorld world) {
+        if (!ModConfig.getInstance().schedulerEnabled) {
+            return;
+        }
+
+        WorldTicks ticks = worldTicks.getIfPresent(world);
+        if (ticks == null) {
+            return;
+        }
+        ticks.wheel.advanceTo(world.getTime());
+        long drainNanos = processTasks(world, ticks);
+        drainBudgetNanos = Math.max(0, drainBudgetNanos - drainNanos);
+    }
+
+    private long processTasks(ServerWorld world, WorldTicks ticks) {
+        SchedulerDrainEvent event = new SchedulerDrainEvent();
+        event.begin();
+        ModConfig config = ModConfig.getInstance();
+        TimingWheel wheel = ticks.wheel;
+        long now = wheel.getCurrentTick();
+        long drainStart = System.nanoTime();
+        long deadline = drainStart + drainBudgetNanos;
+        boolean budgetExhausted = false;
         int processedTasks = 0;
-        while (!taskQueue.isEmpty() && processedTasks < 1000) { // Limit tasks per tick
-            ScheduledTask task = taskQueue.poll();
-            if (task != null) {
-                try {
-                    LOGGER.debug("Executing task at {} with priority {} (world: {})", 
-                        task.pos, 
-                        task.priority,
-                        task.world.getRegistryKey().getValue());
-                    task.run();
-                    pendingTasks.remove(task.pos);
-                    processedTasks++;
-                } catch (Exception e) {
-                    LOGGER.error("Task at {} failed: {}", task.pos, e.getMessage(), e);
-                }
+        int droppedTasks = 0;
+        // Tasks deferred last tick are still at the head of the ready list
+        int carriedOver = ticks.deferred;
+
+        // Anything left in the ready list carries over to the next tick. Deferred tasks stay at
+        // the head, so they age to the front and run before anything that became due later.
+        while (true) {
+            ScheduledTask task = wheel.peekReady();
+            if (task == null) {
+                break;
+            }
+            if (task.cancelled) {
+                wheel.pollReady();
+                droppedTasks++;
+                continue;
+            }
+
+            if (!budgetExhausted && processedTasks >= config.minTasksPerTick
+                && processedTasks % CLOCK_CHECK_INTERVAL == 0
+                && System.nanoTime() >= deadline) {
+                budgetExhausted = true;
+            }
+
+            // Once over budget only tasks that have waited too long are allowed through
+            if (budgetExhausted && now - task.dueTick < config.maxTaskDeferralTicks) {
+                break;
+            }
+
+            // Unindexed before it runs, like vanilla takes a tick off its queue first, so a block
+            // can schedule its own next tick
+            wheel.pollReady();
+            ticks.index.remove(task.posKey, task.type, task);
+            processedTasks++;
+            try {
+                task.run();
+            } catch (Exception e) {
+                FAILED.increment();
+                LOGGER.error("Task at {} failed: {}", task.pos, e.getMessage(), e);
             }
         }
-        return processedTasks;
-    }
-
-    private void logTaskSummary() {
-        LOGGER.info("=== Task Summary ===");
-        LOGGER.info("Total pending tasks: {}", taskQueue.size());
-        LOGGER.info("Tasks by world:");
-        taskQueue.stream()
-            .collect(java.util.stream.Collectors.groupingBy(
-                task -> task.world.getRegistryKey().getValue(),
-                java.util.stream.Collectors.counting()))
-            .forEach((world, count) -> 
-                LOGGER.info("  {}: {} tasks", world, count));
-        
-        LOGGER.info("Tasks by priority:");
-        taskQueue.stream()
-            .collect(java.util.stream.Collectors.groupingBy(
-                task -> task.priority,
-                java.util.stream.Collectors.counting()))
-            .forEach((priority, count) -> 
-                LOGGER.info("  Priority {}: {} tasks", priority, count));
-    }
-
-    private static class ScheduledTask implements Runnable {
-        private final long id;
-        private final ServerWorld world;
-        private final BlockPos pos;
-        private final Runnable task;
-        private final int priority;
-        private final Instant scheduledTime;
-
-        public ScheduledTask(long id, ServerWorld world, BlockPos pos, Runnable task, int priority) {
-            this.id = id;
-            this.world = world;
-            this.pos = pos;
-            this.task = task;
-            this.priority = priority;
-            this.scheduledTime = Instant.now();
-        }
-
-        @Override
-        public void run() {
-            task.run();
+
+        ScheduledTask oldest = wheel.peekReady();
+        int deferredTasks = wheel.readySize();
+        long oldestDeferralTicks = oldest != null ? now - oldest.dueTick : 0;
+        long drainNanos = System.nanoTime() - drainStart;
+        ticks.deferred = deferredTasks;
+        tickProcessedTasks += processedTasks;
+        tickDeferredTasks += deferredTasks;
+        tickOldestDeferralTicks = Math.max(tickOldestDeferralTicks, oldestDeferralTicks);
+        tickDrainNanos += drainNanos;
+        EXECUTED.add(processedTasks);
+        DRAIN_NANOS.record(drainNanos);
+        // Count each task once, on the tick it first misses its slot
+        int newlyDeferred = deferredTasks - Math.max(0, carriedOver - processedTasks - droppedTasks);
+        if (newlyDeferred > 0) {
+            totalDeferredTasks.addAndGet(newlyDeferred);
+            DEFERRED.add(newlyDeferred);
+        }
+
+        if (event.shouldCommit()) {
+            event.world = world.getRegistryKey().getValue().toString();
+            event.processed = processedTasks;
+            event.deferred = deferredTasks;
+            event.oldestDeferralTicks = oldestDeferralTicks;
+            event.commit();
+        }
+        return drainNanos;
+    }
+
+    public boolean isPending(ServerWorld world, BlockPos pos, int type) {
+        WorldTicks ticks = worldTicks.getIfPresent(world);
+        return ticks != null && ticks.index.get(pos.asLong(), type) != null;
+    }
+
+    private void resolveDeferrableTicks() {
+        List<String> entries = ModConfig.getInstance().deferrableTicks;
+        if (entries == resolvedDeferrableTicks) {
+            return;
         }
+        resolvedDeferrableTicks = entries;
+
+        BitSet types = new BitSet();
+        for (String entry : entries) {
+            boolean tag = entry.startsWith("#");
+            Identifier id = Identifier.tryParse(tag ? entry.substring(1) : entry);
+            if (id == null) {
+                LOGGER.warn("Ignoring deferrable tick entry '{}', not a valid id", entry);
+            } else if (tag) {
+                for (RegistryEntry<Block> block : Registries.BLOCK.iterateEntries(TagKey.of(RegistryKeys.BLOCK, id))) {
+                    types.set(TickTypes.of(block.value()));
+                }
+            } else if (Registries.BLOCK.containsId(id)) {
+                types.set(TickTypes.of(Registries.BLOCK.get(id)));
+            } else if (Registries.FLUID.containsId(id)) {
+                types.set(TickTypes.of(Registries.FLUID.get(id)));
+            } else {
+                LOGGER.warn("Ignoring deferrable tick entry '{}', no such block or fluid", entry);
+            }
+        }
+        deferrableTypes = types;
+    }
+
+    public int getLastProcessedTasks() {
+        return lastProcessedTasks;
+    }
+
+    public int getLastDeferredTasks() {
+        return lastDeferredTasks;
+    }
+
+    public long getLastOldestDeferralTicks() {
+        return lastOldestDeferralTicks;
+    }
+
+    public double getLastDrainTime() {
+        return lastDrainNanos / 1_000_000.0;
+    }
+
+    public long getTotalDeferredTasks() {
+        return totalDeferredTasks.get();
+    }
+
+    // One world's held tasks, on that world's clock
+    private static class WorldTicks {
+        private final TimingWheel wheel;
+        private final TickKeyIndex index = new TickKeyIndex();
+        // Due tasks the last drain left at the head of the ready list
+        private int deferred = 0;
 
-        public int getPriority() {
-            return priority;
+        WorldTicks(long tick) {
+            this.wheel = new TimingWheel(tick);
         }
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,161 @@
+package net.tockmod.scheduler;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+
+import java.util.List;
+
+// Open-addressing index of pending tasks for one world, keyed by (BlockPos.asLong(), tick type).
+// Keys live in parallel primitive arrays with linear probing and backward-shift deletion, so
+// lookups, inserts and removals never box or allocate; only growth reallocates the tables.
+// A per-chunk entry count lets a chunk that is saved or unloaded skip the table scan when it
+// has nothing pending, which is almost always.
+class TickKeyIndex {
+    private static final int INITIAL_CAPACITY = 256; // Must be a power of two
+    private static final float MAX_LOAD = 0.5f;
+
+    private long[] positions;
+    private int[] types;
+    private ScheduledTask[] tasks;
+    private int mask;
+    private int size = 0;
+    private int resizeThreshold;
+    private final Long2IntOpenHashMap chunkCounts = new Long2IntOpenHashMap();
+
+    TickKeyIndex() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public ScheduledTask get(long pos, int type) {
+        int slot = hash(pos, type) & mask;
+        ScheduledTask task;
+        while ((task = tasks[slot]) != null) {
+            if (positions[slot] == pos && types[slot] == type) {
+                return task;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    // Returns the task already pending for this key, or null if the new task was inserted
+    public ScheduledTask putIfAbsent(long pos, int type, ScheduledTask task) {
+        int slot = hash(pos, type) & mask;
+        ScheduledTask existing;
+        while ((existing = tasks[slot]) != null) {
+            if (positions[slot] == pos && types[slot] == type) {
+                return existing;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        positions[slot] = pos;
+        types[slot] = type;
+        tasks[slot] = task;
+        chunkCounts.addTo(chunkOf(pos), 1);
+        if (++size > resizeThreshold) {
+            resize(tasks.length << 1);
+        }
+        return null;
+    }
+
+    // Removes the entry only if it still maps to the given task
+    public boolean remove(long pos, int type, ScheduledTask task) {
+        int slot = hash(pos, type) & mask;
+        ScheduledTask existing;
+        while ((existing = tasks[slot]) != null) {
+            if (positions[slot] == pos && types[slot] == type) {
+                if (existing != task) {
+                    return false;
+                }
+                shiftBack(slot);
+                size--;
+                long chunkPos = chunkOf(pos);
+                if (chunkCounts.addTo(chunkPos, -1) == 1) {
+                    chunkCounts.remove(chunkPos);
+                }
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    public int countInChunk(long chunkPos) {
+        return chunkCounts.get(chunkPos);
+    }
+
+    // Adds every task pending in the chunk to out, returning how many were added
+    public int collectInChunk(long chunkPos, List<ScheduledTask> out) {
+        int remaining = chunkCounts.get(chunkPos);
+        int collected = 0;
+        for (int i = 0; i < tasks.length && collected < remaining; i++) {
+            if (tasks[i] != null && chunkOf(positions[i]) == chunkPos) {
+                out.add(tasks[i]);
+                collected++;
+            }
+        }
+        return collected;
+    }
+
+    private static long chunkOf(long pos) {
+        return ChunkPos.toLong(BlockPos.unpackLongX(pos) >> 4, BlockPos.unpackLongZ(pos) >> 4);
+    }
+
+    // Backward-shift deletion keeps probe chains intact without tombstones
+    private void shiftBack(int slot) {
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (tasks[next] != null) {
+            int home = hash(positions[next], types[next]) & mask;
+            // Move the entry into the gap unless its home lies cyclically in (gap, next]
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                positions[gap] = positions[next];
+                types[gap] = types[next];
+                tasks[gap] = tasks[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        tasks[gap] = null;
+    }
+
+    private void resize(int capacity) {
+        long[] oldPositions = positions;
+        int[] oldTypes = types;
+        ScheduledTask[] oldTasks = tasks;
+        allocate(capacity);
+
+        for (int i = 0; i < oldTasks.length; i++) {
+            if (oldTasks[i] == null) {
+                continue;
+            }
+            int slot = hash(oldPositions[i], oldTypes[i]) & mask;
+            while (tasks[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            positions[slot] = oldPositions[i];
+            types[slot] = oldTypes[i];
+            tasks[slot] = oldTasks[i];
+        }
+    }
+
+    private void allocate(int capacity) {
+        positions = new long[capacity];
+        types = new int[capacity];
+        tasks = new ScheduledTask[capacity];
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * MAX_LOAD);
+    }
+
+    private static int hash(long pos, int type) {
+        // The tick type is spread over the whole key before it's mixed with the packed position
+        return (int) HashCommon.mix(pos ^ (type * HashCommon.LONG_PHI));
+    }
+}
@@ -0,0 +1,19 @@
+package net.tockmod.scheduler;
+
+import net.minecraft.world.tick.TickPriority;
+
+// Ready-list lanes for tasks that fall due on the same tick. Vanilla runs a world's block
+// ticks before its fluid ticks and orders each by priority, then by scheduling order.
+final class TickLanes {
+    private static final int PRIORITIES = TickPriority.values().length;
+    static final int COUNT = PRIORITIES * 2;
+    static final int DEFAULT = of(TickPriority.NORMAL, false);
+
+    private TickLanes() {
+    }
+
+    static int of(TickPriority priority, boolean fluid) {
+        int lane = priority.getIndex() - TickPriority.EXTREMELY_HIGH.getIndex();
+        return fluid ? PRIORITIES + lane : lane;
+    }
+}
@@ -0,0 +1,24 @@
+package net.tockmod.scheduler;
+
+import net.minecraft.block.Block;
+import net.minecraft.fluid.Fluid;
+import net.minecraft.registry.Registries;
+
+// Packs the block or fluid a scheduled tick is for into an int id for the dedupe index.
+// Blocks and fluids use separate raw id spaces, so the low bit tells them apart.
+public final class TickTypes {
+    public static final int NONE = -1;
+
+    private TickTypes() {
+    }
+
+    public static int of(Object type) {
+        if (type instanceof Block block) {
+            return Registries.BLOCK.getRawId(block) << 1;
+        }
+        if (type instanceof Fluid fluid) {
+            return (Registries.FLUID.getRawId(fluid) << 1) | 1;
+        }
+        return NONE;
+    }
+}
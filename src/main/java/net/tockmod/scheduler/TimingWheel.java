@@ -0,0 +1,255 @@
+package net.tockmod.scheduler;
+
+import java.util.function.Consumer;
+
+// Hierarchical timing wheel keyed by absolute due tick. Three levels of 256 slots cover
+// 2^24 ticks ahead of the cursor, anything further out waits in an overflow list. Tasks are
+// chained through ScheduledTask.next so add/cascade/poll never allocate. Due tasks sit in the
+// ready list until polled, which carries undrained buckets over to the next tick.
+class TimingWheel {
+    private static final int WHEEL_BITS = 8;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 3;
+
+    private final ScheduledTask[][] heads = new ScheduledTask[LEVELS][WHEEL_SIZE];
+    private final ScheduledTask[][] tails = new ScheduledTask[LEVELS][WHEEL_SIZE];
+    private ScheduledTask overflowHead;
+    private ScheduledTask overflowTail;
+    private ScheduledTask readyHead;
+    private ScheduledTask readyTail;
+
+    // A bucket is sorted into lanes as it falls due, so each tick's tasks reach the ready
+    // list in lane order (block ticks by priority, then fluid ticks) like vanilla runs them
+    private final ScheduledTask[] laneHeads = new ScheduledTask[TickLanes.COUNT];
+    private final ScheduledTask[] laneTails = new ScheduledTask[TickLanes.COUNT];
+
+    private long currentTick;
+    private int size = 0;
+    private int readySize = 0;
+
+    public TimingWheel() {
+        this(0);
+    }
+
+    // Starts the cursor at tick, so a clock that is already far along isn't stepped through
+    public TimingWheel(long tick) {
+        this.currentTick = tick;
+    }
+
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int readySize() {
+        return readySize;
+    }
+
+    public void add(ScheduledTask task) {
+        size++;
+        place(task, false);
+    }
+
+    // Moves the cursor up to tick, releasing every bucket that falls due on the way
+    public void advanceTo(long tick) {
+        if (tick <= currentTick) {
+            return;
+        }
+
+        // Nothing is waiting in the wheel, so there is nothing to cascade on the way
+        if (size == readySize) {
+            currentTick = tick;
+            return;
+        }
+
+        while (currentTick < tick) {
+            step();
+        }
+    }
+
+    public ScheduledTask peekReady() {
+        return readyHead;
+    }
+
+    public ScheduledTask pollReady() {
+        ScheduledTask task = readyHead;
+        if (task == null) {
+            return null;
+        }
+
+        readyHead = task.next;
+        if (readyHead == null) {
+            readyTail = null;
+        }
+        task.next = null;
+        readySize--;
+        size--;
+        return task;
+    }
+
+    public void forEach(Consumer<ScheduledTask> consumer) {
+        visit(readyHead, consumer);
+        for (int level = 0; level < LEVELS; level++) {
+            for (int slot = 0; slot < WHEEL_SIZE; slot++) {
+                visit(heads[level][slot], consumer);
+            }
+        }
+        visit(overflowHead, consumer);
+    }
+
+    // Empties the wheel, handing every task to the consumer regardless of its due tick
+    public void drainAll(Consumer<ScheduledTask> consumer) {
+        ScheduledTask task;
+        while ((task = pollReady()) != null) {
+            consumer.accept(task);
+        }
+        for (int level = 0; level < LEVELS; level++) {
+            for (int slot = 0; slot < WHEEL_SIZE; slot++) {
+                release(heads[level][slot], consumer);
+                heads[level][slot] = null;
+                tails[level][slot] = null;
+            }
+        }
+        release(overflowHead, consumer);
+        overflowHead = null;
+        overflowTail = null;
+        size = 0;
+        readySize = 0;
+    }
+
+    private void step() {
+        long tick = ++currentTick;
+
+        // Cascade coarser levels into finer ones whenever a finer level wraps
+        if ((tick & WHEEL_MASK) == 0) {
+            if (((tick >>> WHEEL_BITS) & WHEEL_MASK) == 0) {
+                if (((tick >>> (2 * WHEEL_BITS)) & WHEEL_MASK) == 0) {
+                    ScheduledTask task = overflowHead;
+                    overflowHead = null;
+                    overflowTail = null;
+                    replace(task);
+                }
+                cascade(2, (int) ((tick >>> (2 * WHEEL_BITS)) & WHEEL_MASK));
+            }
+            cascade(1, (int) ((tick >>> WHEEL_BITS) & WHEEL_MASK));
+        }
+
+        // Everything in the level 0 slot for this tick is now due
+        int slot = (int) (tick & WHEEL_MASK);
+        ScheduledTask task = heads[0][slot];
+        if (task == null) {
+            return;
+        }
+        heads[0][slot] = null;
+        tails[0][slot] = null;
+
+        while (task != null) {
+            ScheduledTask next = task.next;
+            task.next = null;
+            int lane = task.lane;
+            if (laneTails[lane] == null) {
+                laneHeads[lane] = task;
+            } else {
+                laneTails[lane].next = task;
+            }
+            laneTails[lane] = task;
+            readySize++;
+            task = next;
+        }
+
+        for (int lane = 0; lane < TickLanes.COUNT; lane++) {
+            if (laneHeads[lane] == null) {
+                continue;
+            }
+            if (readyTail == null) {
+                readyHead = laneHeads[lane];
+            } else {
+                readyTail.next = laneHeads[lane];
+            }
+            readyTail = laneTails[lane];
+            laneHeads[lane] = null;
+            laneTails[lane] = null;
+        }
+    }
+
+    private void cascade(int level, int slot) {
+        ScheduledTask task = heads[level][slot];
+        heads[level][slot] = null;
+        tails[level][slot] = null;
+        replace(task);
+    }
+
+    private void replace(ScheduledTask task) {
+        while (task != null) {
+            ScheduledTask next = task.next;
+            task.next = null;
+            place(task, true);
+            task = next;
+        }
+    }
+
+    private void place(ScheduledTask task, boolean cascading) {
+        long due = task.dueTick;
+
+        // Cascaded tasks due this very tick still go through the level 0 slot so they get
+        // sorted into lanes with the rest of their bucket
+        if (due < currentTick || (due == currentTick && !cascading)) {
+            appendReady(task);
+            return;
+        }
+
+        int level;
+        if ((due >>> WHEEL_BITS) == (currentTick >>> WHEEL_BITS)) {
+            level = 0;
+        } else if ((due >>> (2 * WHEEL_BITS)) == (currentTick >>> (2 * WHEEL_BITS))) {
+            level = 1;
+        } else if ((due >>> (3 * WHEEL_BITS)) == (currentTick >>> (3 * WHEEL_BITS))) {
+            level = 2;
+        } else {
+            if (overflowTail == null) {
+                overflowHead = task;
+            } else {
+                overflowTail.next = task;
+            }
+            overflowTail = task;
+            return;
+        }
+
+        int slot = (int) ((due >>> (level * WHEEL_BITS)) & WHEEL_MASK);
+        if (tails[level][slot] == null) {
+            heads[level][slot] = task;
+        } else {
+            tails[level][slot].next = task;
+        }
+        tails[level][slot] = task;
+    }
+
+    private void appendReady(ScheduledTask task) {
+        readySize++;
+        if (readyTail == null) {
+            readyHead = task;
+        } else {
+            readyTail.next = task;
+        }
+        readyTail = task;
+    }
+
+    private static void visit(ScheduledTask task, Consumer<ScheduledTask> consumer) {
+        for (; task != null; task = task.next) {
+            consumer.accept(task);
+        }
+    }
+
+    private static void release(ScheduledTask task, Consumer<ScheduledTask> consumer) {
+        while (task != null) {
+            ScheduledTask next = task.next;
+            task.next = null;
+            consumer.accept(task);
+            task = next;
+        }
+    }
+}
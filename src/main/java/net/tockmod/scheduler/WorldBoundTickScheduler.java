@@ -0,0 +1,8 @@
+package net.tockmod.scheduler;
+
+import net.minecraft.server.world.ServerWorld;
+
+// Implemented on WorldTickScheduler by mixin so intercepted ticks know which world owns them
+public interface WorldBoundTickScheduler {
+    void tock$bind(ServerWorld world);
+}
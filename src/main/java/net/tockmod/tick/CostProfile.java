@@ -0,0 +1,48 @@
+package net.tockmod.tick;
+
+// Exponentially weighted mean and variance of per-tick cost for each TickCategory
+public class CostProfile {
+    private static final double ALPHA = 0.1;
+    private static final int CATEGORIES = TickCategory.values().length;
+
+    private final double[] mean = new double[CATEGORIES];
+    private final double[] variance = new double[CATEGORIES];
+    private long samples = 0;
+
+    void update(long[] nanos) {
+        for (int i = 0; i < CATEGORIES; i++) {
+            double value = nanos[i];
+            if (samples == 0) {
+                mean[i] = value;
+                continue;
+            }
+            double delta = value - mean[i];
+            mean[i] += ALPHA * delta;
+            variance[i] = (1 - ALPHA) * (variance[i] + ALPHA * delta * delta);
+        }
+        samples++;
+    }
+
+    public long getSamples() {
+        return samples;
+    }
+
+    // Average cost per tick in milliseconds
+    public double getMean(TickCategory category) {
+        return mean[category.ordinal()] / 1_000_000.0;
+    }
+
+    public double getStdDev(TickCategory category) {
+        return Math.sqrt(variance[category.ordinal()]) / 1_000_000.0;
+    }
+
+    public TickCategory getMostExpensive() {
+        TickCategory worst = TickCategory.values()[0];
+        for (TickCategory category : TickCategory.values()) {
+            if (mean[category.ordinal()] > mean[worst.ordinal()]) {
+                worst = category;
+            }
+        }
+        return worst;
+    }
+}
@@ -0,0 +1,116 @@
+package net.tockmod.tick;
+
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.world.World;
+import net.tockmod.config.ModConfig;
+import net.tockmod.profiler.TickContext;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Sampled per-category tick cost accounting. Phases nest (spawning runs inside chunk ticks),
+// so time is charged exclusively: entering a phase pauses the one around it. Only the phase
+// boundaries read the clock, and only on sampled ticks.
+public class CostProfiler {
+    private static final int CATEGORIES = TickCategory.values().length;
+    private static final int MAX_DEPTH = 8;
+
+    private final long[] worldNanos = new long[CATEGORIES];
+    private final long[] serverNanos = new long[CATEGORIES];
+    private final int[] stack = new int[MAX_DEPTH];
+    private int depth = 0;
+    private int overflow = 0;
+    private long segmentStart = 0;
+    private boolean sampling = false;
+    private boolean inWorldTick = false;
+
+    private final CostProfile serverProfile = new CostProfile();
+    private final Map<RegistryKey<World>, CostProfile> worldProfiles = new LinkedHashMap<>();
+
+    public void startServerTick(long tick) {
+        int interval = ModConfig.getInstance().costSampleInterval;
+        sampling = interval > 0 && tick % interval == 0;
+        Arrays.fill(serverNanos, 0);
+        depth = 0;
+        overflow = 0;
+    }
+
+    public void endServerTick() {
+        if (sampling) {
+            serverProfile.update(serverNanos);
+        }
+        sampling = false;
+    }
+
+    public void startWorldTick() {
+        Arrays.fill(worldNanos, 0);
+        inWorldTick = true;
+    }
+
+    public void endWorldTick(ServerWorld world) {
+        inWorldTick = false;
+        if (!sampling) {
+            return;
+        }
+
+        for (int i = 0; i < CATEGORIES; i++) {
+            serverNanos[i] += worldNanos[i];
+        }
+        worldProfiles.computeIfAbsent(world.getRegistryKey(), key -> new CostProfile()).update(worldNanos);
+    }
+
+    public void begin(TickCategory category) {
+        TickContext.enterPhase(category);
+        if (!sampling) {
+            return;
+        }
+        if (depth == MAX_DEPTH) {
+            overflow++;
+            return;
+        }
+
+        long now = System.nanoTime();
+        if (depth > 0) {
+            charge(stack[depth - 1], now - segmentStart);
+        }
+        stack[depth++] = category.ordinal();
+        segmentStart = now;
+    }
+
+    public void end(TickCategory category) {
+        TickContext.exitPhase(category);
+        if (!sampling) {
+            return;
+        }
+        if (overflow > 0) {
+            overflow--;
+            return;
+        }
+        if (depth == 0 || stack[depth - 1] != category.ordinal()) {
+            return; // Unbalanced hooks, e.g. sampling switched on mid-phase
+        }
+
+        long now = System.nanoTime();
+        charge(stack[--depth], now - segmentStart);
+        segmentStart = now;
+    }
+
+    private void charge(int category, long nanos) {
+        if (inWorldTick) {
+            worldNanos[category] += nanos;
+        } else {
+            serverNanos[category] += nanos;
+        }
+    }
+
+    public CostProfile getServerProfile() {
+        return serverProfile;
+    }
+
+    public Map<RegistryKey<World>, CostProfile> getWorldProfiles() {
+        return Collections.unmodifiableMap(worldProfiles);
+    }
+}
@@ -0,0 +1,120 @@
+package net.tockmod.tick;
+
+// Windowed latency histogram over the last N samples. Buckets are log-linear in microseconds
+// (16 sub-buckets per power of two, ~6% error), and a ring of raw samples lets old values
+// leave the window again, so min/max/percentiles decay instead of sticking forever.
+// Recording never allocates.
+public class LatencyHistogram {
+    private static final int SUB_BITS = 4;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int MAX_EXPONENT = 30; // ~18 minutes in microseconds
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BITS + 1) * SUB_COUNT + SUB_COUNT;
+
+    private final long[] window;
+    private final int[] counts = new int[BUCKETS];
+    private int index = 0;
+    private int size = 0;
+    private long sum = 0;
+    private long last = 0;
+    private long total = 0;
+
+    public LatencyHistogram(int windowSize) {
+        this.window = new long[windowSize];
+    }
+
+    public void record(long nanos) {
+        if (size == window.length) {
+            long evicted = window[index];
+            counts[bucketOf(evicted)]--;
+            sum -= evicted;
+        } else {
+            size++;
+        }
+
+        window[index] = nanos;
+        counts[bucketOf(nanos)]++;
+        sum += nanos;
+        index = (index + 1) % window.length;
+        last = nanos;
+        total++;
+    }
+
+    public int getCount() {
+        return size;
+    }
+
+    // Samples recorded since creation, not capped by the window
+    public long getTotalCount() {
+        return total;
+    }
+
+    public double getLast() {
+        return last / 1_000_000.0;
+    }
+
+    public double getAverage() {
+        return size > 0 ? sum / (double) size / 1_000_000.0 : 0;
+    }
+
+    public double getMin() {
+        if (size == 0) {
+            return 0;
+        }
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            min = Math.min(min, window[i]);
+        }
+        return min / 1_000_000.0;
+    }
+
+    public double getMax() {
+        long max = 0;
+        for (int i = 0; i < size; i++) {
+            max = Math.max(max, window[i]);
+        }
+        return max / 1_000_000.0;
+    }
+
+    // Approximate percentile in milliseconds, p in [0, 1]
+    public double getPercentile(double p) {
+        if (size == 0) {
+            return 0;
+        }
+
+        long target = Math.max(1, (long) Math.ceil(p * size));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts[bucket];
+            if (seen >= target) {
+                return Math.min(bucketMidpoint(bucket) / 1000.0, getMax());
+            }
+        }
+        return getMax();
+    }
+
+    private static int bucketOf(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        if (micros < SUB_COUNT) {
+            return (int) micros;
+        }
+
+        int exponent = Math.min(63 - Long.numberOfLeadingZeros(micros), MAX_EXPONENT);
+        int sub = (int) ((micros >>> (exponent - SUB_BITS)) & (SUB_COUNT - 1));
+        if (exponent == MAX_EXPONENT && micros >= (1L << (MAX_EXPONENT + 1))) {
+            sub = SUB_COUNT - 1;
+        }
+        return (exponent - SUB_BITS + 1) * SUB_COUNT + sub;
+    }
+
+    private static double bucketMidpoint(int bucket) {
+        if (bucket < SUB_COUNT) {
+            return bucket + 0.5;
+        }
+
+        int exponent = bucket / SUB_COUNT + SUB_BITS - 1;
+        int sub = bucket % SUB_COUNT;
+        long width = 1L << (exponent - SUB_BITS);
+        long lower = (long) (SUB_COUNT + sub) * width;
+        return lower + width / 2.0;
+    }
+}
@@ -1,31 +1,56 @@
 package net.tockmod.tick;
 
+import net.minecraft.registry.RegistryKey;
 import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.world.World;
 import net.tockmod.config.ModConfig;
+import net.tockmod.jfr.TickBudgetEvent;
+import net.tockmod.metrics.Counter;
+import net.tockmod.metrics.Gauge;
+import net.tockmod.metrics.Histogram;
+import net.tockmod.metrics.MetricsRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
 
 public class NeuroTickController {
     private static final Logger LOGGER = LoggerFactory.getLogger("Tock/NeuroTick");
+    private static final Counter OVER_BUDGET_TICKS = MetricsRegistry.counter("neurotick.over_budget_ticks");
+    private static final Counter NEAR_BUDGET_TICKS = MetricsRegistry.counter("neurotick.near_budget_ticks");
+    private static final Histogram TICK_NANOS = MetricsRegistry.histogram("neurotick.tick_nanos");
+    private static final Gauge THROTTLE = MetricsRegistry.gauge("neurotick.throttle");
+    private static final int HISTOGRAM_WINDOW = 600; // 30 seconds at 20 TPS
     private final AtomicLong lastTickTime = new AtomicLong(0);
     private final AtomicLong currentTickStart = new AtomicLong(0);
-    private final RollingAverage tickTimeAverage = new RollingAverage(100);
+    private final LatencyHistogram serverTickTimes = new LatencyHistogram(HISTOGRAM_WINDOW);
+    private final Map<RegistryKey<World>, LatencyHistogram> worldTickTimes = new LinkedHashMap<>();
+    private final CostProfiler costProfiler = new CostProfiler();
+    private long currentWorldTickStart = 0;
     private boolean isOverBudget = false;
+    private final PidController pidController = new PidController();
+    private final List<ThrottleListener> throttleListeners = new ArrayList<>();
+    private volatile double throttleLevel = 0;
 
+    // Whole-server tick, driven from START/END_SERVER_TICK
     public void onServerTickStart(MinecraftServer server) {
         if (!ModConfig.getInstance().neurotickEnabled) {
+            // Don't leave subsystems throttled when NeuroTick is switched off
+            if (throttleLevel != 0) {
+                pidController.reset();
+                publishThrottle(0);
+            }
             return;
         }
 
         currentTickStart.set(System.nanoTime());
-        
-        // If we're over budget, reduce processing
-        if (isOverBudget) {
-            LOGGER.warn("Server is over tick budget (avg: {:.2f}ms), reducing processing", getAverageTickTime());
-            // TODO: Implement tick reduction logic
-        }
+        costProfiler.startServerTick(server.getTicks());
     }
 
     public void onServerTickEnd(MinecraftServer server) {
@@ -33,33 +58,96 @@ public class NeuroTickController {
             return;
         }
 
-        long tickTime = (System.nanoTime() - currentTickStart.get()) / 1_000_000; // Convert to milliseconds
-        tickTimeAverage.add(tickTime);
+        costProfiler.endServerTick();
+        long tickNanos = System.nanoTime() - currentTickStart.get();
+        long tickTime = tickNanos / 1_000_000; // Convert to milliseconds
+        serverTickTimes.record(tickNanos);
+        TICK_NANOS.record(tickNanos);
         lastTickTime.set(tickTime);
 
-        // Check if we're over budget
+        // Check if we're over budget; only the first tick of a run over budget is logged
+        boolean wasOverBudget = isOverBudget;
         isOverBudget = tickTime > ModConfig.getInstance().maxTickTime;
-        
+        updateThrottle(tickNanos / 1_000_000.0);
+
+        TickBudgetEvent event = new TickBudgetEvent();
+        if (event.shouldCommit()) {
+            event.tickTime = tickNanos;
+            event.budget = ModConfig.getInstance().maxTickTime;
+            event.overBudget = isOverBudget;
+            event.throttleLevel = throttleLevel;
+            event.commit();
+        }
+
         if (isOverBudget) {
-            LOGGER.warn("Tick took {}ms (budget: {}ms, avg: {:.2f}ms)", 
-                tickTime, 
-                ModConfig.getInstance().maxTickTime,
-                getAverageTickTime());
+            OVER_BUDGET_TICKS.increment();
+            if (!wasOverBudget) {
+                LOGGER.warn("Tick took {}ms (budget: {}ms, avg: {}ms)",
+                    tickTime,
+                    ModConfig.getInstance().maxTickTime,
+                    String.format("%.2f", getAverageTickTime()));
+            }
         } else if (tickTime > ModConfig.getInstance().maxTickTime * 0.8) {
-            LOGGER.info("Tick approaching budget limit: {}ms (budget: {}ms)", 
-                tickTime, 
-                ModConfig.getInstance().maxTickTime);
+            NEAR_BUDGET_TICKS.increment();
+        }
+    }
+
+    private void updateThrottle(double tickMs) {
+        double target = pidController.update(tickMs);
+
+        // Hysteresis: small moves are not republished, but the ends are always reached exactly
+        boolean reachedEnd = (target == 0 || target == 1) && target != throttleLevel;
+        if (!reachedEnd && Math.abs(target - throttleLevel) < ModConfig.getInstance().throttleHysteresis) {
+            return;
+        }
+
+        if (throttleLevel == 0) {
+            LOGGER.warn("Server is over tick budget (avg: {}ms), throttling at level {}",
+                String.format("%.2f", getAverageTickTime()),
+                String.format("%.2f", target));
+        } else if (target == 0) {
+            LOGGER.info("Server is back within tick budget, throttling released");
+        }
+        publishThrottle(target);
+    }
+
+    private void publishThrottle(double level) {
+        throttleLevel = level;
+        THROTTLE.set(level);
+        for (ThrottleListener listener : throttleListeners) {
+            listener.onThrottleChanged(level);
+        }
+    }
+
+    public void addThrottleListener(ThrottleListener listener) {
+        throttleListeners.add(listener);
+        listener.onThrottleChanged(throttleLevel);
+    }
+
+    public double getThrottleLevel() {
+        return throttleLevel;
+    }
+
+    // Single dimension tick, driven from ServerWorld.tick; nested inside the server tick
+    public void onWorldTickStart(ServerWorld world) {
+        if (!ModConfig.getInstance().neurotickEnabled) {
+            return;
         }
 
-        // Log tick timing summary every 100 ticks
-        if (tickTimeAverage.getCount() % 100 == 0) {
-            LOGGER.info("=== Tick Timing Summary ===");
-            LOGGER.info("Last tick: {}ms", tickTime);
-            LOGGER.info("Average tick: {:.2f}ms", getAverageTickTime());
-            LOGGER.info("Min tick: {:.2f}ms", tickTimeAverage.getMin());
-            LOGGER.info("Max tick: {:.2f}ms", tickTimeAverage.getMax());
-            LOGGER.info("Over budget: {}", isOverBudget);
+        currentWorldTickStart = System.nanoTime();
+        costProfiler.startWorldTick();
+    }
+
+    public void onWorldTickEnd(ServerWorld world) {
+        if (!ModConfig.getInstance().neurotickEnabled || currentWorldTickStart == 0) {
+            return;
         }
+
+        costProfiler.endWorldTick(world);
+        long tickNanos = System.nanoTime() - currentWorldTickStart;
+        currentWorldTickStart = 0;
+        worldTickTimes.computeIfAbsent(world.getRegistryKey(), key -> new LatencyHistogram(HISTOGRAM_WINDOW))
+            .record(tickNanos);
     }
 
     public long getLastTickTime() {
@@ -67,53 +155,63 @@ public class NeuroTickController {
     }
 
     public double getAverageTickTime() {
-        return tickTimeAverage.getAverage();
+        return serverTickTimes.getAverage();
+    }
+
+    public LatencyHistogram getServerTickTimes() {
+        return serverTickTimes;
+    }
+
+    public Map<RegistryKey<World>, LatencyHistogram> getWorldTickTimes() {
+        return Collections.unmodifiableMap(worldTickTimes);
+    }
+
+    public CostProfiler getCostProfiler() {
+        return costProfiler;
     }
 
     public boolean isOverBudget() {
         return isOverBudget;
     }
 
-    private static class RollingAverage {
-        private final int size;
-        private final double[] values;
-        private int index = 0;
-        private double sum = 0;
-        private int count = 0;
-        private double min = Double.MAX_VALUE;
-        private double max = Double.MIN_VALUE;
-
-        public RollingAverage(int size) {
-            this.size = size;
-            this.values = new double[size];
+    // Nanoseconds of maxTickTime still free in the current tick, after setting aside what the
+    // rest of a tick usually costs. The caller's own category is the work being budgeted, so it
+    // is left out of that estimate; counting it would starve the caller under steady load.
+    public long getRemainingBudgetNanos(TickCategory own) {
+        long budget = ModConfig.getInstance().maxTickTime * 1_000_000L;
+        if (!ModConfig.getInstance().neurotickEnabled) {
+            return budget;
         }
 
-        public void add(double value) {
-            sum -= values[index];
-            values[index] = value;
-            sum += value;
-            index = (index + 1) % size;
-            count = Math.min(count + 1, size);
-            
-            // Update min/max
-            min = Math.min(min, value);
-            max = Math.max(max, value);
-        }
+        long elapsed = System.nanoTime() - currentTickStart.get();
+        return remainingBudgetNanos(budget, elapsed, getAverageTickTime(), costProfiler.getServerProfile().getMean(own));
+    }
 
-        public double getAverage() {
-            return count > 0 ? sum / count : 0;
-        }
+    static long remainingBudgetNanos(long budgetNanos, long elapsedNanos, double averageTickMs, double ownMs) {
+        long expected = (long) (Math.max(0, averageTickMs - ownMs) * 1_000_000L);
+        return Math.max(0, budgetNanos - elapsedNanos - expected);
+    }
 
-        public int getCount() {
-            return count;
+    // Budget left for work at the very end of the tick, when nothing else is expected to run
+    public long getEndOfTickBudgetNanos() {
+        long budget = ModConfig.getInstance().maxTickTime * 1_000_000L;
+        if (!ModConfig.getInstance().neurotickEnabled) {
+            return budget;
         }
+        return Math.max(0, budget - (System.nanoTime() - currentTickStart.get()));
+    }
 
-        public double getMin() {
-            return min;
-        }
+    public static String describe(LatencyHistogram times) {
+        return String.format("p50 %.2fms, p95 %.2fms, p99 %.2fms, max %.2fms (avg %.2fms over %d ticks)",
+            times.getPercentile(0.50),
+            times.getPercentile(0.95),
+            times.getPercentile(0.99),
+            times.getMax(),
+            times.getAverage(),
+            times.getCount());
+    }
 
-        public double getMax() {
-            return max;
-        }
+    public static String describe(CostProfile profile, TickCategory category) {
+        return String.format("%.3fms ± %.3fms", profile.getMean(category), profile.getStdDev(category));
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,48 @@
+package net.tockmod.tick;
+
+import net.tockmod.config.ModConfig;
+
+// Turns MSPT error into a throttle level in [0, 1]. The integral only accumulates while the
+// output is not saturated in the direction of the error (anti-windup), and the derivative
+// acts on the smoothed measurement so a setpoint change does not kick the output.
+public class PidController {
+    private static final double MEASUREMENT_ALPHA = 0.2;
+
+    private double integral = 0;
+    private double smoothed = Double.NaN;
+    private double output = 0;
+
+    public double update(double measuredMspt) {
+        ModConfig config = ModConfig.getInstance();
+        double previous = Double.isNaN(smoothed) ? measuredMspt : smoothed;
+        smoothed = previous + MEASUREMENT_ALPHA * (measuredMspt - previous);
+
+        double error = smoothed - config.maxTickTime;
+        double derivative = smoothed - previous;
+
+        // Output we would get if this tick's error were integrated
+        double prospective = config.pidKp * error + integral + config.pidKi * error + config.pidKd * derivative;
+        boolean saturatedHigh = prospective >= 1 && error > 0;
+        boolean saturatedLow = prospective <= 0 && error < 0;
+        if (!saturatedHigh && !saturatedLow) {
+            integral = clamp(integral + config.pidKi * error);
+        }
+
+        output = clamp(config.pidKp * error + integral + config.pidKd * derivative);
+        return output;
+    }
+
+    public double getOutput() {
+        return output;
+    }
+
+    public void reset() {
+        integral = 0;
+        smoothed = Double.NaN;
+        output = 0;
+    }
+
+    private static double clamp(double value) {
+        return Math.max(0, Math.min(1, value));
+    }
+}
@@ -0,0 +1,7 @@
+package net.tockmod.tick;
+
+@FunctionalInterface
+public interface ThrottleListener {
+    // level is 0 when the server is within budget and rises to 1 at full load shedding
+    void onThrottleChanged(double level);
+}
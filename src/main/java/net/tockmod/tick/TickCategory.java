@@ -0,0 +1,20 @@
+package net.tockmod.tick;
+
+public enum TickCategory {
+    ENTITIES("Entities"),
+    BLOCK_ENTITIES("Block Entities"),
+    CHUNK_TICKS("Chunk Ticks"),
+    SCHEDULED_TICKS("Scheduled Ticks"),
+    SPAWNING("Spawning"),
+    BLOCK_CACHE("Block Cache");
+
+    private final String displayName;
+
+    TickCategory(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+}
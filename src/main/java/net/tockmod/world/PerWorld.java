@@ -0,0 +1,49 @@
+package net.tockmod.world;
+
+import net.minecraft.server.world.ServerWorld;
+
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+// Server thread state kept per world. Worlds tick one after another, so lookups come in long
+// runs for the same world and the last one's entry is kept to skip the map lookup.
+public class PerWorld<T> {
+    private final Map<ServerWorld, T> values = new IdentityHashMap<>();
+    private final Function<ServerWorld, T> factory;
+    private ServerWorld lastWorld;
+    private T lastValue;
+
+    public PerWorld(Function<ServerWorld, T> factory) {
+        this.factory = factory;
+    }
+
+    // Creates the world's entry on first use
+    public T get(ServerWorld world) {
+        if (world != lastWorld) {
+            lastValue = values.computeIfAbsent(world, factory);
+            lastWorld = world;
+        }
+        return lastValue;
+    }
+
+    public T getIfPresent(ServerWorld world) {
+        return world == lastWorld ? lastValue : values.get(world);
+    }
+
+    public Collection<T> values() {
+        return values.values();
+    }
+
+    public void forEach(BiConsumer<ServerWorld, T> action) {
+        values.forEach(action);
+    }
+
+    public void clear() {
+        values.clear();
+        lastWorld = null;
+        lastValue = null;
+    }
+}
@@ -0,0 +1,257 @@
+package net.tockmod.world;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+
+import java.util.Arrays;
+import java.util.List;
+
+// Grid-bucketed index of player positions per world, rebuilt once at the start of every server
+// tick. Players are bucketed into 64x64 block columns, so nearest-player and radius queries
+// only look at the cells around the query instead of scanning every player in the world.
+// Rebuilds reuse their arrays and queries never allocate.
+public class PlayerSpatialIndex {
+    private static final int CELL_BITS = 6; // 64 block cells
+    private static final int CELL_SIZE = 1 << CELL_BITS;
+
+    private final PerWorld<WorldIndex> worlds = new PerWorld<>(world -> new WorldIndex());
+
+    public void rebuild(MinecraftServer server) {
+        for (WorldIndex index : worlds.values()) {
+            index.clear();
+        }
+        for (ServerWorld world : server.getWorlds()) {
+            List<ServerPlayerEntity> players = world.getPlayers();
+            if (players.isEmpty()) {
+                continue;
+            }
+
+            WorldIndex index = worlds.get(world);
+            for (int i = 0; i < players.size(); i++) {
+                ServerPlayerEntity player = players.get(i);
+                // Spectators don't load, spawn or interact with anything
+                if (!player.isSpectator()) {
+                    index.add(player.getX(), player.getY(), player.getZ());
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        worlds.clear();
+    }
+
+    public int getPlayerCount(ServerWorld world) {
+        return worlds.get(world).count;
+    }
+
+    // Squared distance to the nearest player at most maxDistance away, or Double.MAX_VALUE if
+    // there is none. Callers that only care about a band should pass its outer edge, since the
+    // search stops there instead of ringing out to the furthest player.
+    public double nearestDistanceSq(ServerWorld world, double x, double y, double z, double maxDistance) {
+        return worlds.get(world).nearestDistanceSq(x, y, z, maxDistance);
+    }
+
+    public boolean isPlayerWithin(ServerWorld world, double x, double y, double z, double radius) {
+        return worlds.get(world).countWithin(x, y, z, radius, 1) > 0;
+    }
+
+    public int countPlayersWithin(ServerWorld world, double x, double y, double z, double radius) {
+        return worlds.get(world).countWithin(x, y, z, radius, Integer.MAX_VALUE);
+    }
+
+    private static class WorldIndex {
+        private static final int INITIAL_PLAYERS = 16;
+        private static final int INITIAL_CELLS = 32; // Must be a power of two
+        private static final long EMPTY = Long.MIN_VALUE;
+
+        // Player positions, chained per cell through next
+        private double[] xs = new double[INITIAL_PLAYERS];
+        private double[] ys = new double[INITIAL_PLAYERS];
+        private double[] zs = new double[INITIAL_PLAYERS];
+        private int[] next = new int[INITIAL_PLAYERS];
+        private int count = 0;
+
+        // Open-addressing map from packed cell coordinates to the first player in the cell
+        private long[] cellKeys = newCellKeys(INITIAL_CELLS);
+        private int[] cellHeads = new int[INITIAL_CELLS];
+        private int cellMask = INITIAL_CELLS - 1;
+        private int cellCount = 0;
+
+        // Bounds of the occupied cells, so ring searches know when to stop
+        private int minCellX;
+        private int maxCellX;
+        private int minCellZ;
+        private int maxCellZ;
+
+        void clear() {
+            if (cellCount > 0) {
+                Arrays.fill(cellKeys, EMPTY);
+            }
+            count = 0;
+            cellCount = 0;
+        }
+
+        void add(double x, double y, double z) {
+            if (count == xs.length) {
+                int capacity = count << 1;
+                xs = Arrays.copyOf(xs, capacity);
+                ys = Arrays.copyOf(ys, capacity);
+                zs = Arrays.copyOf(zs, capacity);
+                next = Arrays.copyOf(next, capacity);
+            }
+            if ((cellCount + 1) * 2 > cellKeys.length) {
+                growCells();
+            }
+
+            int player = count++;
+            xs[player] = x;
+            ys[player] = y;
+            zs[player] = z;
+
+            int cellX = cellOf(x);
+            int cellZ = cellOf(z);
+            if (cellCount == 0) {
+                minCellX = maxCellX = cellX;
+                minCellZ = maxCellZ = cellZ;
+            } else {
+                minCellX = Math.min(minCellX, cellX);
+                maxCellX = Math.max(maxCellX, cellX);
+                minCellZ = Math.min(minCellZ, cellZ);
+                maxCellZ = Math.max(maxCellZ, cellZ);
+            }
+
+            long key = cellKey(cellX, cellZ);
+            int slot = findSlot(key);
+            if (cellKeys[slot] == EMPTY) {
+                cellKeys[slot] = key;
+                cellHeads[slot] = -1;
+                cellCount++;
+            }
+            next[player] = cellHeads[slot];
+            cellHeads[slot] = player;
+        }
+
+        double nearestDistanceSq(double x, double y, double z, double maxDistance) {
+            if (count == 0) {
+                return Double.MAX_VALUE;
+            }
+
+            int centerX = cellOf(x);
+            int centerZ = cellOf(z);
+            int maxRing = Math.max(
+                Math.max(Math.abs(centerX - minCellX), Math.abs(maxCellX - centerX)),
+                Math.max(Math.abs(centerZ - minCellZ), Math.abs(maxCellZ - centerZ)));
+            // Cells in ring r are at least r - 1 cells away horizontally
+            maxRing = (int) Math.min(maxRing, Math.floor(maxDistance / CELL_SIZE) + 1);
+
+            double best = Double.MAX_VALUE;
+            for (int ring = 0; ring <= maxRing; ring++) {
+                for (int cellX = centerX - ring; cellX <= centerX + ring; cellX++) {
+                    // Only the border of the ring, the inside was searched already
+                    int step = (cellX == centerX - ring || cellX == centerX + ring) ? 1 : Math.max(1, 2 * ring);
+                    for (int cellZ = centerZ - ring; cellZ <= centerZ + ring; cellZ += step) {
+                        best = Math.min(best, nearestInCell(cellX, cellZ, x, y, z));
+                    }
+                }
+
+                // Every cell further out is at least ring cells away horizontally
+                double bound = (double) ring * CELL_SIZE;
+                if (best <= bound * bound) {
+                    break;
+                }
+            }
+            return best <= maxDistance * maxDistance ? best : Double.MAX_VALUE;
+        }
+
+        int countWithin(double x, double y, double z, double radius, int limit) {
+            if (count == 0) {
+                return 0;
+            }
+
+            double radiusSq = radius * radius;
+            int fromX = Math.max(cellOf(x - radius), minCellX);
+            int toX = Math.min(cellOf(x + radius), maxCellX);
+            int fromZ = Math.max(cellOf(z - radius), minCellZ);
+            int toZ = Math.min(cellOf(z + radius), maxCellZ);
+            int found = 0;
+            for (int cellX = fromX; cellX <= toX; cellX++) {
+                for (int cellZ = fromZ; cellZ <= toZ; cellZ++) {
+                    int slot = findSlot(cellKey(cellX, cellZ));
+                    if (cellKeys[slot] == EMPTY) {
+                        continue;
+                    }
+                    for (int player = cellHeads[slot]; player >= 0; player = next[player]) {
+                        if (distanceSq(player, x, y, z) <= radiusSq && ++found >= limit) {
+                            return found;
+                        }
+                    }
+                }
+            }
+            return found;
+        }
+
+        private double nearestInCell(int cellX, int cellZ, double x, double y, double z) {
+            int slot = findSlot(cellKey(cellX, cellZ));
+            if (cellKeys[slot] == EMPTY) {
+                return Double.MAX_VALUE;
+            }
+            double best = Double.MAX_VALUE;
+            for (int player = cellHeads[slot]; player >= 0; player = next[player]) {
+                best = Math.min(best, distanceSq(player, x, y, z));
+            }
+            return best;
+        }
+
+        private double distanceSq(int player, double x, double y, double z) {
+            double dx = xs[player] - x;
+            double dy = ys[player] - y;
+            double dz = zs[player] - z;
+            return dx * dx + dy * dy + dz * dz;
+        }
+
+        private int findSlot(long key) {
+            int slot = hash(key) & cellMask;
+            long existing;
+            while ((existing = cellKeys[slot]) != EMPTY && existing != key) {
+                slot = (slot + 1) & cellMask;
+            }
+            return slot;
+        }
+
+        private void growCells() {
+            long[] oldKeys = cellKeys;
+            int[] oldHeads = cellHeads;
+            cellKeys = newCellKeys(oldKeys.length << 1);
+            cellHeads = new int[oldKeys.length << 1];
+            cellMask = cellKeys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    int slot = findSlot(oldKeys[i]);
+                    cellKeys[slot] = oldKeys[i];
+                    cellHeads[slot] = oldHeads[i];
+                }
+            }
+        }
+
+        private static long[] newCellKeys(int capacity) {
+            long[] keys = new long[capacity];
+            Arrays.fill(keys, EMPTY);
+            return keys;
+        }
+
+        private static int cellOf(double coordinate) {
+            return (int) Math.floor(coordinate) >> CELL_BITS;
+        }
+
+        private static long cellKey(int cellX, int cellZ) {
+            return (cellX & 0xFFFFFFFFL) | ((cellZ & 0xFFFFFFFFL) << 32);
+        }
+
+        private static int hash(long key) {
+            return (int) HashCommon.mix(key);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package net.tockmod.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NearestBlocksTest {
+    @Test
+    void keepsOnlyTheNearestInOrder() {
+        NearestBlocks nearest = new NearestBlocks(3);
+        long[] distances = {50, 10, 40, 5, 30, 20, 60};
+        for (long distance : distances) {
+            if (nearest.accepts(distance)) {
+                nearest.add(distance * 100, distance);
+            }
+        }
+
+        assertEquals(3, nearest.size());
+        assertArrayEquals(new long[] {500, 1000, 2000}, nearest.toSortedArray());
+    }
+
+    @Test
+    void rejectsAnythingNoNearerOnceFull() {
+        NearestBlocks nearest = new NearestBlocks(2);
+        nearest.add(1, 10);
+        assertFalse(nearest.isFull());
+        assertTrue(nearest.accepts(1000));
+        nearest.add(2, 20);
+
+        assertTrue(nearest.isFull());
+        assertEquals(20, nearest.getWorstDistanceSq());
+        assertFalse(nearest.accepts(20));
+        assertTrue(nearest.accepts(19));
+    }
+
+    @Test
+    void matchesAFullSortOfRandomDistances() {
+        Random random = new Random(42);
+        long[] distances = new long[10000];
+        NearestBlocks nearest = new NearestBlocks(100);
+        for (int i = 0; i < distances.length; i++) {
+            distances[i] = random.nextInt(1_000_000) * 10000L + i;
+            if (nearest.accepts(distances[i])) {
+                nearest.add(i, distances[i]);
+            }
+        }
+
+        long[] sorted = distances.clone();
+        Arrays.sort(sorted);
+        long[] kept = nearest.toSortedArray();
+        assertEquals(100, kept.length);
+        for (int i = 0; i < kept.length; i++) {
+            assertEquals(sorted[i], distances[(int) kept[i]]);
+        }
+    }
+
+    @Test
+    void emptyWhenNothingWasAdded() {
+        assertArrayEquals(new long[0], new NearestBlocks(4).toSortedArray());
+    }
+}
@@ -0,0 +1,46 @@
+package net.tockmod.cache;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.world.chunk.PalettedContainer;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PendingChunkTest {
+    @Test
+    void newChunkWaitsForEverySection() {
+        PendingChunk chunk = new PendingChunk(3);
+        assertFalse(chunk.isComplete());
+
+        // Empty sections count as captured, they just hold nothing
+        chunk.set(0, null, null);
+        chunk.set(2, null, null);
+        assertFalse(chunk.isComplete());
+
+        chunk.set(1, null, null);
+        assertTrue(chunk.isComplete());
+    }
+
+    @Test
+    void recapturingASectionDoesNotCountTwice() {
+        PendingChunk chunk = new PendingChunk(2);
+        chunk.set(0, null, null);
+        chunk.set(0, null, null);
+        assertFalse(chunk.isComplete());
+
+        chunk.set(1, null, null);
+        assertTrue(chunk.isComplete());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void chunkStartingFromASnapshotIsCompleteAtOnce() {
+        PendingChunk chunk = new PendingChunk((PalettedContainer<BlockState>[]) new PalettedContainer[4],
+            new SectionSummary[4]);
+        assertTrue(chunk.isComplete());
+
+        chunk.set(1, null, null);
+        assertTrue(chunk.isComplete());
+    }
+}
@@ -0,0 +1,81 @@
+package net.tockmod.chunk;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChunkActivityTableTest {
+    private static long chunk(int x, int z) {
+        return (long) x & 0xFFFFFFFFL | ((long) z & 0xFFFFFFFFL) << 32;
+    }
+
+    @Test
+    void tracksActivityAcrossGrowth() {
+        ChunkActivityTable table = new ChunkActivityTable();
+        for (int x = -50; x < 50; x++) {
+            for (int z = -50; z < 50; z++) {
+                table.markActive(chunk(x, z), x + 1000L);
+            }
+        }
+
+        assertEquals(10000, table.size());
+        assertEquals(950, table.getLastActive(chunk(-50, 7)));
+        assertEquals(1049, table.getLastActive(chunk(49, -50)));
+        assertEquals(-1, table.getLastActive(chunk(500, 500)));
+        assertEquals(5000, table.countActiveSince(1000));
+    }
+
+    @Test
+    void heatAloneDoesNotMakeAChunkActive() {
+        ChunkActivityTable table = new ChunkActivityTable();
+        table.addHeat(chunk(3, 4), 10);
+
+        assertEquals(-1, table.getLastActive(chunk(3, 4)));
+        assertEquals(10, table.getHeat(chunk(3, 4)));
+        assertEquals(0, table.countActiveSince(0));
+    }
+
+    @Test
+    void pruneKeepsRecentOrStillHotChunks() {
+        ChunkActivityTable table = new ChunkActivityTable();
+        table.markActive(chunk(0, 0), 10);
+        table.markActive(chunk(1, 0), 100);
+        table.markActive(chunk(2, 0), 10);
+        table.addHeat(chunk(2, 0), 50);
+
+        assertEquals(1, table.pruneInactiveBefore(50, 1));
+        assertEquals(-1, table.getLastActive(chunk(0, 0)));
+        assertEquals(100, table.getLastActive(chunk(1, 0)));
+        assertEquals(10, table.getLastActive(chunk(2, 0)));
+    }
+
+    @Test
+    void collectsHottestFirst() {
+        ChunkActivityTable table = new ChunkActivityTable();
+        for (int i = 1; i <= 20; i++) {
+            table.addHeat(chunk(i, -i), i);
+        }
+        table.decayHeat(0.5f);
+
+        long[] chunks = new long[3];
+        float[] heat = new float[3];
+        assertEquals(3, table.collectHottest(chunks, heat));
+        assertArrayEquals(new float[]{10, 9.5f, 9}, heat);
+        assertArrayEquals(new long[]{chunk(20, -20), chunk(19, -19), chunk(18, -18)}, chunks);
+    }
+
+    @Test
+    void collectActiveSinceFillsTheSet() {
+        ChunkActivityTable table = new ChunkActivityTable();
+        table.markActive(chunk(0, 0), 5);
+        table.markActive(chunk(0, 1), 15);
+
+        ChunkSet set = new ChunkSet();
+        table.collectActiveSince(10, set);
+        assertTrue(set.contains(chunk(0, 1)));
+        assertFalse(set.contains(chunk(0, 0)));
+    }
+}
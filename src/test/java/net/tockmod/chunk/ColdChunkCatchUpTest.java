@@ -0,0 +1,42 @@
+package net.tockmod.chunk;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ColdChunkCatchUpTest {
+    @Test
+    void owesEveryPickTheChunkMissed() {
+        assertEquals(36_000, ColdChunkCatchUp.owedPicks(12_000, 3));
+        assertEquals(0, ColdChunkCatchUp.owedPicks(12_000, 0));
+    }
+
+    @Test
+    void longSuspensionIsPaidInFullAtMostTheCapPerTick() {
+        // Ten minutes suspended at the default random tick speed
+        long debt = ColdChunkCatchUp.owedPicks(12_000, 3);
+        long paid = 0;
+        int ticks = 0;
+        while (debt > 0) {
+            int picks = ColdChunkCatchUp.picksThisTick(debt, 64);
+            assertTrue(picks > 0 && picks <= 64);
+            debt -= picks;
+            paid += picks;
+            ticks++;
+        }
+
+        assertEquals(36_000, paid);
+        assertEquals(563, ticks);
+    }
+
+    @Test
+    void shortSuspensionIsPaidOnTheFirstTick() {
+        assertEquals(30, ColdChunkCatchUp.picksThisTick(ColdChunkCatchUp.owedPicks(10, 3), 64));
+    }
+
+    @Test
+    void capOfZeroPaysNothing() {
+        assertEquals(0, ColdChunkCatchUp.picksThisTick(500, 0));
+    }
+}
@@ -0,0 +1,83 @@
+package net.tockmod.entity;
+
+import net.minecraft.nbt.NbtCompound;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DeferredSpawnQueueTest {
+    private static final long NO_DEADLINE = Long.MAX_VALUE;
+
+    private static DeferredSpawnQueue.DeferredSpawn spawn(int typeId, double x, long tick) {
+        return new DeferredSpawnQueue.DeferredSpawn(null, typeId, new NbtCompound(), x, 64, 0, -1, tick);
+    }
+
+    @Test
+    void fullQueueDropsItsOldestSpawn() {
+        DeferredSpawnQueue queue = new DeferredSpawnQueue();
+        for (int i = 0; i < 5; i++) {
+            queue.offer(spawn(1, i, 0), 3);
+        }
+        assertEquals(3, queue.size());
+        assertEquals(2, queue.getDroppedSpawns());
+
+        List<Double> replayed = new ArrayList<>();
+        queue.drain(0, 100, NO_DEADLINE, spawn -> replayed.add(spawn.x()));
+        assertEquals(List.of(2.0, 3.0, 4.0), replayed);
+    }
+
+    @Test
+    void staleSpawnsAreDroppedInsteadOfReplayed() {
+        DeferredSpawnQueue queue = new DeferredSpawnQueue();
+        queue.offer(spawn(1, 0, 0), 8);
+        queue.offer(spawn(1, 1, 50), 8);
+
+        List<Double> replayed = new ArrayList<>();
+        assertEquals(1, queue.drain(120, 100, NO_DEADLINE, spawn -> replayed.add(spawn.x())));
+        assertEquals(List.of(1.0), replayed);
+        assertEquals(1, queue.getDroppedSpawns());
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    void deniedReplaysWaitForALaterTick() {
+        DeferredSpawnQueue queue = new DeferredSpawnQueue();
+        queue.offer(spawn(1, 0, 0), 8);
+        queue.offer(spawn(1, 1, 0), 8);
+
+        // Only one token is left this tick, the other spawn stays queued in order
+        int[] tokens = {1};
+        assertEquals(1, queue.drain(1, 100, NO_DEADLINE, spawn -> tokens[0]-- > 0));
+        assertEquals(1, queue.size());
+
+        List<Double> replayed = new ArrayList<>();
+        assertEquals(1, queue.drain(2, 100, NO_DEADLINE, spawn -> replayed.add(spawn.x())));
+        assertEquals(List.of(1.0), replayed);
+        assertEquals(0, queue.getDroppedSpawns());
+    }
+
+    @Test
+    void typesTakeTurns() {
+        DeferredSpawnQueue queue = new DeferredSpawnQueue();
+        queue.offer(spawn(1, 0, 0), 8);
+        queue.offer(spawn(1, 1, 0), 8);
+        queue.offer(spawn(2, 10, 0), 8);
+        queue.offer(spawn(2, 11, 0), 8);
+
+        List<Double> replayed = new ArrayList<>();
+        queue.drain(0, 100, NO_DEADLINE, spawn -> replayed.add(spawn.x()));
+        assertEquals(List.of(0.0, 10.0, 1.0, 11.0), replayed);
+    }
+
+    @Test
+    void nothingIsReplayedPastTheDeadline() {
+        DeferredSpawnQueue queue = new DeferredSpawnQueue();
+        queue.offer(spawn(1, 0, 0), 8);
+
+        assertEquals(0, queue.drain(0, 100, System.nanoTime(), spawn -> true));
+        assertEquals(1, queue.size());
+    }
+}
@@ -0,0 +1,44 @@
+package net.tockmod.entity;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class EntityLodManagerTest {
+    @Test
+    void nearbyMobsMoveEveryTick() {
+        for (long tick = 0; tick < 16; tick++) {
+            assertEquals(1, EntityLodManager.tickScale(7, tick, 1));
+        }
+    }
+
+    @Test
+    void farMobsMoveOnlyOnTheirPhaseTick() {
+        // Movement isn't scaled up on the phase tick, so a mob in the 8-tick band covers an eighth of the distance
+        for (int interval : new int[] {2, 4, 8}) {
+            int moves = 0;
+            for (long tick = 0; tick < 64; tick++) {
+                int scale = EntityLodManager.tickScale(5, tick, interval);
+                if (scale != 0) {
+                    assertEquals(interval, scale);
+                    moves++;
+                }
+            }
+            assertEquals(64 / interval, moves);
+        }
+    }
+
+    @Test
+    void phasesSpreadABandEvenlyOverItsInterval() {
+        // 64 mobs with consecutive ids in the 8-tick band: 8 of them update on every tick
+        for (long tick = 100; tick < 116; tick++) {
+            int ticking = 0;
+            for (int id = 0; id < 64; id++) {
+                if (EntityLodManager.isPhaseTick(id, tick, 8)) {
+                    ticking++;
+                }
+            }
+            assertEquals(8, ticking);
+        }
+    }
+}
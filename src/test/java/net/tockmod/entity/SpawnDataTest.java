@@ -0,0 +1,50 @@
+package net.tockmod.entity;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpawnDataTest {
+    private static final float CAPACITY = 2;
+    private static final float REFILL = 0.1f; // One token every 10 ticks
+
+    @Test
+    void bucketsRefillOverTime() {
+        SpawnData data = new SpawnData(0);
+        assertTrue(data.tryConsumeToken(3, 0, CAPACITY, REFILL));
+        assertTrue(data.tryConsumeToken(3, 0, CAPACITY, REFILL));
+        assertFalse(data.tryConsumeToken(3, 5, CAPACITY, REFILL));
+        assertTrue(data.tryConsumeToken(3, 10, CAPACITY, REFILL));
+    }
+
+    @Test
+    void fullTickCoversTheMostDrainedBucket() {
+        SpawnData data = new SpawnData(0);
+        assertEquals(Long.MIN_VALUE, data.getFullTick(CAPACITY, REFILL));
+
+        data.tryConsumeToken(0, 100, CAPACITY, REFILL);
+        data.tryConsumeToken(1, 100, CAPACITY, REFILL);
+        data.tryConsumeToken(1, 100, CAPACITY, REFILL);
+        assertEquals(120, data.getFullTick(CAPACITY, REFILL));
+    }
+
+    @Test
+    void restoredChunkDoesNotStartWithFullBuckets() {
+        SpawnData evicted = new SpawnData(0);
+        evicted.tryConsumeToken(7, 0, CAPACITY, REFILL);
+        evicted.tryConsumeToken(7, 0, CAPACITY, REFILL);
+        long fullTick = evicted.getFullTick(CAPACITY, REFILL);
+
+        // Comes back 5 ticks later: half a token refilled, so nothing to hand out yet
+        SpawnData restored = new SpawnData(5);
+        restored.restoreDrained(fullTick);
+        assertFalse(restored.tryConsumeToken(7, 5, CAPACITY, REFILL));
+        assertTrue(restored.tryConsumeToken(7, 10, CAPACITY, REFILL));
+
+        // Once the buckets would have refilled, new types start full again
+        assertTrue(restored.tryConsumeToken(8, 20, CAPACITY, REFILL));
+        assertTrue(restored.tryConsumeToken(8, 20, CAPACITY, REFILL));
+    }
+}
@@ -0,0 +1,57 @@
+package net.tockmod.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HistogramTest {
+    @Test
+    void emptyHistogramReportsZero() {
+        Histogram histogram = new Histogram();
+        assertEquals(0, histogram.getPercentile(0.99));
+        assertEquals(0, histogram.getMean());
+    }
+
+    @Test
+    void percentileIsTheUpperBoundOfItsBucket() {
+        Histogram histogram = new Histogram();
+        for (long value = 1; value <= 1000; value++) {
+            histogram.record(value);
+        }
+
+        // The 500th value falls in [256, 512)
+        assertEquals(511, histogram.getPercentile(0.5));
+        // The 10th value falls in [8, 16)
+        assertEquals(15, histogram.getPercentile(0.01));
+        // Capped at the largest value seen rather than the bucket bound 1023
+        assertEquals(1000, histogram.getPercentile(1.0));
+    }
+
+    @Test
+    void percentileBoundsTheTrueValue() {
+        Histogram histogram = new Histogram();
+        long[] values = {0, 1, 3, 4, 1L << 20, (1L << 40) + 5, Long.MAX_VALUE};
+        for (long value : values) {
+            histogram.record(value);
+        }
+
+        for (int i = 0; i < values.length; i++) {
+            double p = (i + 0.5) / values.length;
+            long reported = histogram.getPercentile(p);
+            assertTrue(reported >= values[i], "p" + p + " below " + values[i]);
+            assertTrue(values[i] == 0 ? reported <= 1 : reported < values[i] * 2 || reported == Long.MAX_VALUE,
+                "p" + p + " too far above " + values[i]);
+        }
+    }
+
+    @Test
+    void negativeValuesCountAsZero() {
+        Histogram histogram = new Histogram();
+        histogram.record(-5);
+
+        assertEquals(1, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getPercentile(0.5));
+    }
+}
@@ -0,0 +1,47 @@
+package net.tockmod.scheduler;
+
+import net.minecraft.util.math.BlockPos;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IngestionQueueTest {
+    @Test
+    void keepsEachProducersSubmissionOrder() throws InterruptedException {
+        IngestionQueue queue = new IngestionQueue();
+        int producers = 4;
+        int perProducer = 10000;
+
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    queue.push(new ScheduledTask(i, null, BlockPos.ORIGIN, producer, TickLanes.DEFAULT, () -> { }, 0));
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Map<Integer, Long> lastSeen = new HashMap<>();
+        int drained = queue.drainTo(task -> {
+            assertNull(task.next);
+            long previous = lastSeen.getOrDefault(task.type, -1L);
+            assertTrue(task.id > previous, "producer order lost");
+            lastSeen.put(task.type, task.id);
+        });
+
+        assertEquals(producers * perProducer, drained);
+        assertEquals(0, queue.drainTo(task -> { }));
+    }
+}
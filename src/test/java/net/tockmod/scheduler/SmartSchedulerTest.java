@@ -0,0 +1,176 @@
+package net.tockmod.scheduler;
+
+import net.minecraft.block.Block;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.chunk.WorldChunk;
+import net.minecraft.world.tick.BasicTickScheduler;
+import net.minecraft.world.tick.OrderedTick;
+import net.minecraft.world.tick.TickPriority;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SmartSchedulerTest {
+    private static final int TYPE = 42;
+
+    @SuppressWarnings("unchecked")
+    private static WorldChunk chunk(ChunkPos pos) {
+        WorldChunk chunk = mock(WorldChunk.class);
+        when(chunk.getPos()).thenReturn(pos);
+        when(chunk.getBlockTickScheduler()).thenReturn(mock(BasicTickScheduler.class));
+        return chunk;
+    }
+
+    private static ServerWorld world() {
+        return world(new long[] {1000});
+    }
+
+    private static ServerWorld world(long[] time) {
+        MinecraftServer server = mock(MinecraftServer.class);
+        when(server.isOnThread()).thenReturn(true);
+        ServerWorld world = mock(ServerWorld.class);
+        when(world.getServer()).thenReturn(server);
+        when(world.getTime()).thenAnswer(invocation -> time[0]);
+        return world;
+    }
+
+    private static ScheduledTask held(ServerWorld world, BlockPos pos, Block block, long dueTick) {
+        DeferredTick tick = new DeferredTick(world, pos, block, TickPriority.NORMAL);
+        return new ScheduledTask(0, world, pos, TYPE, TickLanes.DEFAULT, tick, dueTick);
+    }
+
+    @Test
+    void unloadingChunkHandsItsHeldTicksBack() {
+        SmartScheduler scheduler = new SmartScheduler(null);
+        ServerWorld world = world();
+        Block block = mock(Block.class);
+        BlockPos pos = new BlockPos(5, 64, 9);
+        BlockPos elsewhere = new BlockPos(100, 64, 9);
+        WorldChunk chunk = chunk(new ChunkPos(pos));
+        WorldChunk otherChunk = chunk(new ChunkPos(elsewhere));
+
+        ScheduledTask task = held(world, pos, block, 20);
+        scheduler.enqueue(task);
+        scheduler.enqueue(held(world, elsewhere, block, 20));
+        assertTrue(scheduler.isPending(world, pos, TYPE));
+
+        scheduler.onChunkSaving(world, chunk);
+
+        // Back in the chunk with its remaining delay, and no longer held by the scheduler
+        verify(chunk.getBlockTickScheduler()).scheduleTick(argThat((OrderedTick<Block> tick) ->
+            tick.pos().equals(pos) && tick.type() == block && tick.triggerTick() == 1020));
+        assertTrue(task.cancelled);
+        assertFalse(scheduler.isPending(world, pos, TYPE));
+
+        // The other chunk keeps its tick
+        verify(otherChunk.getBlockTickScheduler(), never()).scheduleTick(any());
+        assertTrue(scheduler.isPending(world, elsewhere, TYPE));
+    }
+
+    @Test
+    void unloadAfterSaveDoesNotHandBackTwice() {
+        SmartScheduler scheduler = new SmartScheduler(null);
+        ServerWorld world = world();
+        BlockPos pos = new BlockPos(-3, 10, -40);
+        WorldChunk chunk = chunk(new ChunkPos(pos));
+        scheduler.enqueue(held(world, pos, mock(Block.class), 5));
+
+        scheduler.onChunkSaving(world, chunk);
+        scheduler.onChunkSaving(world, chunk);
+
+        verify(chunk.getBlockTickScheduler(), times(1)).scheduleTick(any());
+    }
+
+    @Test
+    void tickScheduledDuringADrainWaitsForTheNextTick() {
+        SmartScheduler scheduler = new SmartScheduler(null);
+        long[] time = {1000};
+        ServerWorld world = world(time);
+        BlockPos pos = new BlockPos(1, 64, 1);
+        List<String> ran = new ArrayList<>();
+        scheduler.scheduleTask(world, pos, () -> {
+            ran.add("first");
+            scheduler.scheduleTask(world, pos.up(), () -> ran.add("second"), 0);
+        }, 0);
+
+        scheduler.drainWorld(world);
+        assertEquals(List.of("first"), ran);
+
+        time[0]++;
+        scheduler.drainWorld(world);
+        assertEquals(List.of("first", "second"), ran);
+    }
+
+    @Test
+    void eachWorldOnlyRunsItsOwnTicks() {
+        SmartScheduler scheduler = new SmartScheduler(null);
+        long[] time = {1000};
+        ServerWorld overworld = world(time);
+        ServerWorld nether = world(time);
+        BlockPos pos = new BlockPos(8, 70, 8);
+        List<String> ran = new ArrayList<>();
+        scheduler.scheduleTask(overworld, pos, () -> ran.add("overworld"), 1);
+        scheduler.scheduleTask(nether, pos, () -> ran.add("nether"), 1);
+
+        time[0]++;
+        scheduler.drainWorld(nether);
+        assertEquals(List.of("nether"), ran);
+        scheduler.drainWorld(overworld);
+        assertEquals(List.of("nether", "overworld"), ran);
+    }
+
+    @Test
+    void blockCanRescheduleItsOwnTickWhileItRuns() {
+        SmartScheduler scheduler = new SmartScheduler(null);
+        long[] time = {1000};
+        ServerWorld world = world(time);
+        BlockPos pos = new BlockPos(0, 5, 0);
+        int[] runs = {0};
+        Runnable[] tick = new Runnable[1];
+        tick[0] = () -> {
+            runs[0]++;
+            scheduler.scheduleTask(world, pos, TYPE, tick[0], 1);
+        };
+        scheduler.scheduleTask(world, pos, TYPE, tick[0], 1);
+
+        for (int i = 0; i < 3; i++) {
+            time[0]++;
+            scheduler.drainWorld(world);
+        }
+        assertEquals(3, runs[0]);
+        assertTrue(scheduler.isPending(world, pos, TYPE));
+    }
+
+    @Test
+    void replaysTicksDueTogetherInVanillaOrder() {
+        SmartScheduler scheduler = new SmartScheduler(null);
+        long[] time = {1000};
+        ServerWorld world = world(time);
+        List<String> ran = new ArrayList<>();
+        scheduler.enqueue(new ScheduledTask(1, world, new BlockPos(0, 0, 0), 2,
+            TickLanes.of(TickPriority.NORMAL, true), () -> ran.add("fluid"), 1001));
+        scheduler.enqueue(new ScheduledTask(2, world, new BlockPos(1, 0, 0), 4,
+            TickLanes.of(TickPriority.LOW, false), () -> ran.add("low block"), 1001));
+        scheduler.enqueue(new ScheduledTask(3, world, new BlockPos(2, 0, 0), 4,
+            TickLanes.of(TickPriority.HIGH, false), () -> ran.add("high block"), 1001));
+
+        time[0]++;
+        scheduler.drainWorld(world);
+        assertEquals(List.of("high block", "low block", "fluid"), ran);
+    }
+}
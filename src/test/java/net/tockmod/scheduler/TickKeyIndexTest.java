@@ -0,0 +1,117 @@
+package net.tockmod.scheduler;
+
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TickKeyIndexTest {
+    private static ScheduledTask task(BlockPos pos, int type) {
+        return new ScheduledTask(0, null, pos, type, TickLanes.DEFAULT, () -> { }, 0);
+    }
+
+    @Test
+    void firstTaskForAKeyWins() {
+        TickKeyIndex index = new TickKeyIndex();
+        BlockPos pos = new BlockPos(1, 64, -3);
+        ScheduledTask first = task(pos, 2);
+
+        assertNull(index.putIfAbsent(pos.asLong(), 2, first));
+        assertSame(first, index.putIfAbsent(pos.asLong(), 2, task(pos, 2)));
+        assertNull(index.putIfAbsent(pos.asLong(), 4, task(pos, 4)));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void removeOnlyMatchesTheIndexedTask() {
+        TickKeyIndex index = new TickKeyIndex();
+        BlockPos pos = new BlockPos(0, 0, 0);
+        ScheduledTask indexed = task(pos, 0);
+        index.putIfAbsent(pos.asLong(), 0, indexed);
+
+        assertFalse(index.remove(pos.asLong(), 0, task(pos, 0)));
+        assertTrue(index.remove(pos.asLong(), 0, indexed));
+        assertNull(index.get(pos.asLong(), 0));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void keyCanBeReinsertedAfterRemoval() {
+        TickKeyIndex index = new TickKeyIndex();
+        BlockPos pos = new BlockPos(7, 70, 7);
+        ScheduledTask first = task(pos, 6);
+        index.putIfAbsent(pos.asLong(), 6, first);
+        index.remove(pos.asLong(), 6, first);
+
+        ScheduledTask second = task(pos, 6);
+        assertNull(index.putIfAbsent(pos.asLong(), 6, second));
+        assertSame(second, index.get(pos.asLong(), 6));
+    }
+
+    @Test
+    void deletionKeepsProbeChainsIntact() {
+        TickKeyIndex index = new TickKeyIndex();
+        int count = 5000;
+        ScheduledTask[] tasks = new ScheduledTask[count];
+        for (int i = 0; i < count; i++) {
+            BlockPos pos = new BlockPos(i % 37, i / 37, -i % 11);
+            tasks[i] = task(pos, i & 3);
+            assertNull(index.putIfAbsent(pos.asLong(), i & 3, tasks[i]));
+        }
+
+        // Punch holes all through the table, then every survivor must still be reachable
+        for (int i = 0; i < count; i += 3) {
+            assertTrue(index.remove(tasks[i].posKey, tasks[i].type, tasks[i]));
+        }
+        for (int i = 0; i < count; i++) {
+            ScheduledTask found = index.get(tasks[i].posKey, tasks[i].type);
+            if (i % 3 == 0) {
+                assertNull(found);
+            } else {
+                assertSame(tasks[i], found);
+            }
+        }
+
+        for (int i = 0; i < count; i += 3) {
+            assertNull(index.putIfAbsent(tasks[i].posKey, tasks[i].type, tasks[i]));
+        }
+        assertEquals(count, index.size());
+        for (int i = 0; i < count; i++) {
+            assertSame(tasks[i], index.get(tasks[i].posKey, tasks[i].type));
+        }
+    }
+
+    @Test
+    void collectsOnlyTheTasksOfOneChunk() {
+        TickKeyIndex index = new TickKeyIndex();
+        List<ScheduledTask> inChunk = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            BlockPos pos = new BlockPos(i - 150, i % 5, -1);
+            ScheduledTask task = task(pos, 0);
+            index.putIfAbsent(pos.asLong(), 0, task);
+            if (pos.getX() >= -16 && pos.getX() < 0) {
+                inChunk.add(task);
+            }
+        }
+
+        long chunkPos = ChunkPos.toLong(-1, -1);
+        assertEquals(16, index.countInChunk(chunkPos));
+        List<ScheduledTask> collected = new ArrayList<>();
+        assertEquals(16, index.collectInChunk(chunkPos, collected));
+        assertTrue(collected.containsAll(inChunk));
+
+        for (ScheduledTask task : inChunk) {
+            index.remove(task.posKey, task.type, task);
+        }
+        assertEquals(0, index.countInChunk(chunkPos));
+        assertEquals(0, index.collectInChunk(chunkPos, new ArrayList<>()));
+    }
+}
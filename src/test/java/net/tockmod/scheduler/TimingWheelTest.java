@@ -0,0 +1,178 @@
+package net.tockmod.scheduler;
+
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.tick.TickPriority;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class TimingWheelTest {
+    private long nextId = 0;
+
+    private ScheduledTask task(long dueTick) {
+        return task(dueTick, TickLanes.DEFAULT);
+    }
+
+    private ScheduledTask task(long dueTick, int lane) {
+        return new ScheduledTask(++nextId, null, BlockPos.ORIGIN, TickTypes.NONE, lane, () -> { }, dueTick);
+    }
+
+    // Steps one tick at a time and returns the tick each task became ready on
+    private static List<long[]> drainUntil(TimingWheel wheel, long lastTick) {
+        List<long[]> released = new ArrayList<>();
+        while (wheel.getCurrentTick() < lastTick) {
+            wheel.advanceTo(wheel.getCurrentTick() + 1);
+            ScheduledTask task;
+            while ((task = wheel.pollReady()) != null) {
+                released.add(new long[]{task.id, wheel.getCurrentTick(), task.dueTick});
+            }
+        }
+        return released;
+    }
+
+    @Test
+    void releasesTaskOnItsDueTick() {
+        TimingWheel wheel = new TimingWheel();
+        wheel.add(task(5));
+
+        wheel.advanceTo(4);
+        assertNull(wheel.peekReady());
+        wheel.advanceTo(5);
+        assertEquals(5, wheel.pollReady().dueTick);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void taskDueNowOrInThePastIsReadyImmediately() {
+        TimingWheel wheel = new TimingWheel();
+        wheel.advanceTo(100);
+        wheel.add(task(100));
+        wheel.add(task(40));
+
+        assertEquals(2, wheel.readySize());
+        assertEquals(100, wheel.pollReady().dueTick);
+        assertEquals(40, wheel.pollReady().dueTick);
+    }
+
+    @Test
+    void startsAtTheGivenTick() {
+        // A world clock can be millions of ticks in; nothing before it is stepped through
+        TimingWheel wheel = new TimingWheel(24_000_000);
+        wheel.add(task(24_000_300));
+
+        List<long[]> released = drainUntil(wheel, 24_000_400);
+        assertEquals(1, released.size());
+        assertEquals(24_000_300, released.get(0)[1]);
+    }
+
+    @Test
+    void cascadesFromEveryLevelOnTheExactTick() {
+        TimingWheel wheel = new TimingWheel();
+        wheel.advanceTo(3);
+        // Level 0, level 1 across a level 0 wrap, and level 2 across a level 1 wrap
+        long[] dues = {10, 255, 256, 257, 1000, 65535, 65536, 70000};
+        for (long due : dues) {
+            wheel.add(task(due));
+        }
+
+        List<long[]> released = drainUntil(wheel, 70000);
+        assertEquals(dues.length, released.size());
+        for (int i = 0; i < dues.length; i++) {
+            long[] entry = released.get(i);
+            assertEquals(dues[i], entry[2]);
+            assertEquals(entry[2], entry[1], "task released on the wrong tick");
+        }
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void overflowTasksComeBackAfterTheTopLevelWraps() {
+        TimingWheel wheel = new TimingWheel();
+        long horizon = 1L << 24;
+        wheel.add(task(horizon + 7));
+        wheel.add(task(2 * horizon + 1));
+        assertEquals(2, wheel.size());
+
+        wheel.advanceTo(horizon + 6);
+        assertNull(wheel.peekReady());
+        wheel.advanceTo(horizon + 7);
+        assertEquals(horizon + 7, wheel.pollReady().dueTick);
+
+        // Still beyond the wheel after the first wrap, so it must be re-parked in overflow
+        wheel.advanceTo(2 * horizon);
+        assertNull(wheel.peekReady());
+        wheel.advanceTo(2 * horizon + 1);
+        assertEquals(2 * horizon + 1, wheel.pollReady().dueTick);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void jumpingAheadReleasesEverythingInDueOrder() {
+        TimingWheel wheel = new TimingWheel();
+        wheel.add(task(70000));
+        wheel.add(task(300));
+        wheel.add(task(2));
+
+        wheel.advanceTo(100000);
+        assertEquals(3, wheel.readySize());
+        assertEquals(2, wheel.pollReady().dueTick);
+        assertEquals(300, wheel.pollReady().dueTick);
+        assertEquals(70000, wheel.pollReady().dueTick);
+    }
+
+    @Test
+    void sameTickTasksAreOrderedByLaneThenInsertion() {
+        TimingWheel wheel = new TimingWheel();
+        ScheduledTask fluid = task(300, TickLanes.of(TickPriority.HIGH, true));
+        ScheduledTask normal = task(300, TickLanes.of(TickPriority.NORMAL, false));
+        ScheduledTask normalLater = task(300, TickLanes.of(TickPriority.NORMAL, false));
+        ScheduledTask high = task(300, TickLanes.of(TickPriority.HIGH, false));
+        wheel.add(fluid);
+        wheel.add(normal);
+        wheel.add(normalLater);
+        wheel.add(high);
+
+        wheel.advanceTo(300);
+        assertSame(high, wheel.pollReady());
+        assertSame(normal, wheel.pollReady());
+        assertSame(normalLater, wheel.pollReady());
+        assertSame(fluid, wheel.pollReady());
+    }
+
+    @Test
+    void undrainedReadyTasksCarryOverAheadOfLaterOnes() {
+        TimingWheel wheel = new TimingWheel();
+        ScheduledTask first = task(1);
+        ScheduledTask second = task(2);
+        wheel.add(first);
+        wheel.add(second);
+
+        wheel.advanceTo(1);
+        wheel.advanceTo(2);
+        assertEquals(2, wheel.readySize());
+        assertSame(first, wheel.pollReady());
+        assertSame(second, wheel.pollReady());
+    }
+
+    @Test
+    void drainAllEmptiesEveryLevel() {
+        TimingWheel wheel = new TimingWheel();
+        wheel.add(task(0));
+        wheel.add(task(10));
+        wheel.add(task(1000));
+        wheel.add(task(100000));
+        wheel.add(task(1L << 30));
+
+        int[] drained = new int[1];
+        wheel.drainAll(task -> drained[0]++);
+        assertEquals(5, drained[0]);
+        assertEquals(0, wheel.size());
+        assertEquals(0, wheel.readySize());
+        assertNull(wheel.peekReady());
+    }
+}
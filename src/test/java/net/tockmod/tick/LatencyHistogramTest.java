@@ -0,0 +1,65 @@
+package net.tockmod.tick;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+    @Test
+    void emptyHistogramReportsZero() {
+        LatencyHistogram histogram = new LatencyHistogram(16);
+        assertEquals(0, histogram.getPercentile(0.5));
+        assertEquals(0, histogram.getMin());
+        assertEquals(0, histogram.getMax());
+    }
+
+    @Test
+    void percentilesStayWithinBucketError() {
+        LatencyHistogram histogram = new LatencyHistogram(1000);
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 50_000L); // 0.05ms .. 50ms
+        }
+
+        for (double p : new double[]{0.01, 0.5, 0.9, 0.99}) {
+            double exact = Math.ceil(p * 1000) * 0.05;
+            double reported = histogram.getPercentile(p);
+            assertTrue(Math.abs(reported - exact) <= exact * 0.0625,
+                "p" + p + " reported " + reported + " for " + exact);
+        }
+    }
+
+    @Test
+    void percentilesNeverExceedTheMaximum() {
+        LatencyHistogram histogram = new LatencyHistogram(8);
+        histogram.record(17_000_000L);
+        histogram.record(17_000_000L);
+
+        assertTrue(histogram.getPercentile(1.0) <= histogram.getMax());
+        assertTrue(histogram.getPercentile(0.0) <= histogram.getMax());
+    }
+
+    @Test
+    void hugeSamplesLandInTheLastBucket() {
+        LatencyHistogram histogram = new LatencyHistogram(4);
+        histogram.record(Long.MAX_VALUE / 2);
+        histogram.record(1_000L);
+
+        assertTrue(histogram.getPercentile(1.0) > 0);
+        assertEquals(0.001, histogram.getPercentile(0.5), 0.001);
+    }
+
+    @Test
+    void oldSamplesLeaveTheWindow() {
+        LatencyHistogram histogram = new LatencyHistogram(4);
+        histogram.record(100_000_000L);
+        for (int i = 0; i < 4; i++) {
+            histogram.record(1_000_000L);
+        }
+
+        assertEquals(4, histogram.getCount());
+        assertEquals(5, histogram.getTotalCount());
+        assertEquals(1.0, histogram.getMax());
+        assertEquals(1.0, histogram.getPercentile(0.99), 1.0 * 0.0625);
+    }
+}
@@ -0,0 +1,42 @@
+package net.tockmod.tick;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class NeuroTickControllerTest {
+    private static final long BUDGET = 50_000_000;
+
+    @Test
+    void ownCostIsNotSetAside() {
+        // 50ms ticks, 20ms of them spent by the caller: the other 30ms are all that is reserved
+        assertEquals(20_000_000, NeuroTickController.remainingBudgetNanos(BUDGET, 0, 50.0, 20.0));
+    }
+
+    @Test
+    void timeAlreadySpentComesOffTheTop() {
+        assertEquals(15_000_000, NeuroTickController.remainingBudgetNanos(BUDGET, 5_000_000, 50.0, 20.0));
+    }
+
+    @Test
+    void nothingIsLeftWhenTheRestOfTheTickOverruns() {
+        assertEquals(0, NeuroTickController.remainingBudgetNanos(BUDGET, 0, 70.0, 10.0));
+    }
+
+    @Test
+    void budgetHoldsSteadyWhenTheCallerUsesAllOfIt() {
+        // The rest of every tick costs 30ms and the caller always has more work than it is given
+        double otherMs = 30.0;
+        double averageMs = 0;
+        double ownMs = 0;
+        long given = 0;
+        for (int tick = 0; tick < 400; tick++) {
+            given = NeuroTickController.remainingBudgetNanos(BUDGET, 0, averageMs, ownMs);
+            ownMs = given / 1_000_000.0;
+            averageMs += 0.1 * (otherMs + ownMs - averageMs);
+        }
+
+        assertEquals(20.0, given / 1_000_000.0, 0.01);
+        assertEquals(50.0, averageMs, 0.01);
+    }
+}